@@ -1,13 +0,0 @@
-package io.vevox.vx.structures;
-
-import org.bukkit.plugin.java.JavaPlugin;
-
-/**
- * Main plugin class for vxStructures.
- * @author Matthew Struble
- */
-@SuppressWarnings("unused")
-public class vxStructures extends JavaPlugin {
-
-
-}
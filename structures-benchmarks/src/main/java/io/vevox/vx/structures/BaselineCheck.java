@@ -0,0 +1,124 @@
+package io.vevox.vx.structures;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares JMH results, in its CSV result format, against a stored baseline.
+ * <p>
+ * Only the GC profiler's normalized allocation rate is compared, which must not rise by more than the tolerance. It
+ * counts the bytes allocated per operation, so unlike timings it is the same on any machine and the baseline can be
+ * shared. Every other score is ignored. Benchmarks missing from either side are ignored too, so new benchmarks can be
+ * added before the baseline is refreshed.
+ *
+ * @author Matthew Struble
+ * @see BenchmarkMain
+ * @since 0.1.0
+ */
+final class BaselineCheck {
+
+  private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+  // Allocations of a few bytes per operation are noise from the harness, not the benchmark.
+  private static final double MIN_ALLOCATION = 64;
+
+  private BaselineCheck() {
+  }
+
+  /**
+   * A single score from a result file.
+   */
+  static final class Score {
+
+    final double score;
+    final String unit;
+
+    Score(double score, String unit) {
+      this.score = score;
+      this.unit = unit;
+    }
+
+  }
+
+  /**
+   * Reads the scores from a JMH CSV result file, keyed by benchmark name and parameters.
+   *
+   * @param file The result file.
+   *
+   * @return The scores, in file order.
+   * @throws IOException If the file cannot be read, or is not a JMH CSV result file.
+   */
+  static Map<String, Score> read(File file) throws IOException {
+    List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+    if (lines.isEmpty()) throw new IOException("Empty result file " + file);
+
+    List<String> header = split(lines.get(0));
+    int benchmark = header.indexOf("Benchmark"), score = header.indexOf("Score"), unit = header.indexOf("Unit");
+    if (benchmark < 0 || score < 0 || unit < 0) throw new IOException("Not a JMH result file " + file);
+
+    Map<String, Score> scores = new LinkedHashMap<>();
+    for (String line : lines.subList(1, lines.size())) {
+      if (line.trim().isEmpty()) continue;
+      List<String> row = split(line);
+      // Params of other benchmarks in the same run are left blank, so they are not part of the key. Otherwise results
+      // would only match a baseline from a run of exactly the same benchmarks.
+      StringBuilder key = new StringBuilder(row.get(benchmark));
+      for (int i = 0; i < header.size(); i++)
+        if (header.get(i).startsWith("Param: ") && !row.get(i).isEmpty())
+          key.append(' ').append(header.get(i).substring(7)).append('=').append(row.get(i));
+      try {
+        scores.put(key.toString(), new Score(Double.parseDouble(row.get(score)), row.get(unit)));
+      } catch (NumberFormatException e) {
+        // Secondary results without a score, such as GC counts in short runs.
+      }
+    }
+    return scores;
+  }
+
+  private static List<String> split(String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (char c : line.toCharArray()) {
+      if (c == '"') quoted = !quoted;
+      else if (c == ',' && !quoted) {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else field.append(c);
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+
+  /**
+   * Finds the scores that have regressed from the baseline.
+   *
+   * @param baseline  The baseline scores.
+   * @param results   The new scores.
+   * @param tolerance The fraction by which a score may regress, such as <code>0.2</code> for 20%.
+   *
+   * @return A description of each regression, empty if there are none.
+   */
+  static List<String> compare(Map<String, Score> baseline, Map<String, Score> results, double tolerance) {
+    List<String> regressions = new ArrayList<>();
+    for (Map.Entry<String, Score> entry : results.entrySet()) {
+      Score before = baseline.get(entry.getKey()), after = entry.getValue();
+      if (before == null || !before.unit.equals(after.unit)) continue;
+
+      if (!entry.getKey().contains(ALLOCATION) || Math.max(before.score, after.score) < MIN_ALLOCATION) continue;
+
+      double change = (after.score - before.score) / Math.max(before.score, MIN_ALLOCATION);
+      if (change > tolerance)
+        regressions.add(String.format("%s: %.3f -> %.3f %s (%+.0f%%)", entry.getKey(), before.score, after.score,
+            after.unit, change * 100));
+    }
+    return regressions;
+  }
+
+}
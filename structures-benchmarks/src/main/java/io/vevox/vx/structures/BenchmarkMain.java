@@ -0,0 +1,65 @@
+package io.vevox.vx.structures;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, so every result includes its allocation rate, and writes the
+ * results as CSV to <code>benchmarks.csv</code> unless another file is given with <code>-rff</code>. Any other JMH
+ * option can be given as usual.
+ * <p>
+ * If the <code>vxs.baseline</code> system property names a result file, the allocation rates of the new results are
+ * compared against it afterwards, and the run fails if any of them rose by more than <code>vxs.tolerance</code>, by
+ * default <code>0.2</code>. Timings are never compared, as they depend on the machine. The stored baseline is
+ * <code>structures-benchmarks/baseline.csv</code>, which holds only the allocation rates of a full run.
+ *
+ * @author Matthew Struble
+ * @see BaselineCheck
+ * @since 0.1.0
+ */
+public final class BenchmarkMain {
+
+  private BenchmarkMain() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions cli = new CommandLineOptions(args);
+    if (cli.shouldHelp() || cli.shouldList() || cli.shouldListWithParams() || cli.shouldListProfilers()
+        || cli.shouldListResultFormats()) {
+      Main.main(args);
+      return;
+    }
+
+    File results = new File(cli.getResult().orElse("benchmarks.csv"));
+    Options options = new OptionsBuilder()
+        .parent(cli)
+        .addProfiler(GCProfiler.class)
+        .resultFormat(ResultFormatType.CSV)
+        .result(results.getPath())
+        .build();
+    new Runner(options).run();
+
+    String baseline = System.getProperty("vxs.baseline");
+    if (baseline == null) return;
+
+    double tolerance = Double.parseDouble(System.getProperty("vxs.tolerance", "0.2"));
+    List<String> regressions = BaselineCheck.compare(BaselineCheck.read(new File(baseline)),
+        BaselineCheck.read(results), tolerance);
+    if (regressions.isEmpty()) {
+      System.out.println("No regressions against " + baseline);
+      return;
+    }
+    System.err.println(regressions.size() + " regression(s) against " + baseline + ":");
+    regressions.forEach(regression -> System.err.println("  " + regression));
+    System.exit(1);
+  }
+
+}
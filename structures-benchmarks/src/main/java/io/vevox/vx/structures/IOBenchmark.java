@@ -0,0 +1,89 @@
+package io.vevox.vx.structures;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding and encoding of NBT structure files with each built-in {@link CompressionCodec}. Files are held in memory,
+ * so only the codec and the NBT reader and writer are measured, not the disk. {@link #readTagTree()} reads the same
+ * files through a {@link TagTreeReader}, which decodes the whole tag tree first like the server does, as a reference
+ * for the streaming reader.
+ * <p>
+ * The size of each encoded file is reported alongside as the <code>encodedBytes</code> counter.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IOBenchmark {
+
+  @Param
+  public Shape shape;
+
+  @Param({"gzip", "deflate", "lz", "none"})
+  public String codec;
+
+  private StructureData data;
+  private CompressionCodec compression;
+  private byte[] encoded;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    data = shape.create();
+    compression = CompressionCodec.forName(codec, -1);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    data.write(out, compression);
+    encoded = out.toByteArray();
+  }
+
+  /**
+   * Reports the size of the encoded structure.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Encoded {
+
+    public long encodedBytes;
+
+  }
+
+  @Benchmark
+  public StructureData read() throws IOException {
+    return StructureData.read(new ByteArrayInputStream(encoded));
+  }
+
+  @Benchmark
+  public StructureData readTagTree() throws IOException {
+    return TagTreeReader.read(new ByteArrayInputStream(encoded));
+  }
+
+  @Benchmark
+  public int write(Encoded counters) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(encoded.length);
+    data.write(out, compression);
+    counters.encodedBytes = out.size();
+    return out.size();
+  }
+
+}
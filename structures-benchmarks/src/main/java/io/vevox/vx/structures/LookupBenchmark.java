@@ -0,0 +1,161 @@
+package io.vevox.vx.structures;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Block lookups and the views that rotate, mirror and copy structures.
+ * <p>
+ * Each lookup benchmark reads every cell of the structure once, in index order. With the <code>unpacked</code> layout,
+ * the structure is copied into a storage that keeps each cell as a whole <code>int</code>, as a reference for what the
+ * packed and sparse storages cost over the naive layout, and the storage's estimated size is reported alongside as the
+ * <code>storageBytes</code> counter of {@link #scan(Storage)}. {@link #scanIntArray()} reads the same cells straight
+ * from a plain <code>int[]</code> of palette indices, without going through a storage at all.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LookupBenchmark {
+
+  @Param
+  public Shape shape;
+
+  @Param({"packed", "unpacked"})
+  public String layout;
+
+  private StructureData data;
+  private StructureData rotated;
+  private StructureData mirrored;
+  private int[] cells;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    data = shape.create();
+    if (layout.equals("unpacked")) data = new StructureData(data.author, data.version,
+        new UnpackedBlockStorage(data.blocks), data.getPalette());
+    rotated = data.rotated(1);
+    mirrored = data.mirroredX();
+
+    cells = new int[data.sizeX * data.sizeY * data.sizeZ];
+    for (int i = 0; i < cells.length; i++)
+      cells[i] = data.blocks.get(i);
+  }
+
+  private static int scan(StructureData data) {
+    int hash = 0;
+    for (int y = 0; y < data.sizeY; y++)
+      for (int z = 0; z < data.sizeZ; z++)
+        for (int x = 0; x < data.sizeX; x++)
+          hash = hash * 31 + data.getState(x, y, z);
+    return hash;
+  }
+
+  /**
+   * Reports the estimated size of the storage being read.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Storage {
+
+    public long storageBytes;
+
+  }
+
+  @Benchmark
+  public int scan(Storage counters) {
+    counters.storageBytes = data.blocks.estimatedBytes();
+    return scan(data);
+  }
+
+  @Benchmark
+  public int scanRotated() {
+    return scan(rotated);
+  }
+
+  @Benchmark
+  public int scanMirrored() {
+    return scan(mirrored);
+  }
+
+  @Benchmark
+  public int scanIntArray() {
+    int hash = 0;
+    for (int cell : cells)
+      hash = hash * 31 + cell;
+    return hash;
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public StructureData rotate() {
+    return data.rotated(1);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public StructureData mirror() {
+    return data.mirroredX();
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public StructureData copy() {
+    return data.copy("benchmark", 2);
+  }
+
+  /**
+   * Storage that keeps every cell as a whole <code>int</code>, the layout the packed storage replaced.
+   */
+  static final class UnpackedBlockStorage extends BlockStorage {
+
+    private final int[] cells;
+
+    UnpackedBlockStorage(BlockStorage source) {
+      super(source.sizeX, source.sizeY, source.sizeZ);
+      cells = new int[source.volume()];
+      for (int i = 0; i < cells.length; i++)
+        cells[i] = source.get(i);
+    }
+
+    @Override
+    long estimatedBytes() {
+      return 32 + cells.length * 4L;
+    }
+
+    @Override
+    int get(int x, int y, int z) {
+      return cells[index(x, y, z)];
+    }
+
+    @Override
+    int get(int index) {
+      return cells[index];
+    }
+
+    @Override
+    void set(int x, int y, int z, int state) {
+      cells[index(x, y, z)] = state;
+    }
+
+  }
+
+}
@@ -0,0 +1,58 @@
+package io.vevox.vx.structures;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An in-memory stand-in for a server world, laid out like one: a map of chunk columns, each with sixteen lazily
+ * allocated 16x16x16 sections. Pasting into it measures the engine and the cost of storing blocks, without lighting,
+ * physics or sending chunks to players.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+final class MemoryWorld implements PasteTarget<Object> {
+
+  static final Object AIR = new Object();
+
+  private final Map<Long, Object[][]> chunks = new HashMap<>();
+  private Object[][] chunk;
+
+  @Override
+  public int maxHeight() {
+    return 256;
+  }
+
+  @Override
+  public void beginChunk(int chunkX, int chunkZ) {
+    chunk = chunks.computeIfAbsent((long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL), key -> new Object[16][]);
+  }
+
+  @Override
+  public Object get(int x, int y, int z) {
+    Object[] section = chunk[y >> 4];
+    return section == null ? AIR : section[(y & 15) << 8 | (z & 15) << 4 | (x & 15)];
+  }
+
+  @Override
+  public void set(int x, int y, int z, Object state) {
+    Object[] section = chunk[y >> 4];
+    if (section == null) {
+      section = chunk[y >> 4] = new Object[4096];
+      Arrays.fill(section, AIR);
+    }
+    section[(y & 15) << 8 | (z & 15) << 4 | (x & 15)] = state;
+  }
+
+  @Override
+  public void endChunk(boolean changed) {
+    chunk = null;
+  }
+
+  @Override
+  public boolean finish() {
+    return false;
+  }
+
+}
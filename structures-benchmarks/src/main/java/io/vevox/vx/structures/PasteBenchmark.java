@@ -0,0 +1,72 @@
+package io.vevox.vx.structures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pastes through the {@link PasteEngine} into a {@link MemoryWorld}.
+ * <p>
+ * The world is kept between invocations, so replacing pastes measure overwriting blocks that are already allocated,
+ * and {@link #pasteDiff()} measures a paste in which every block already matches and nothing is written.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasteBenchmark {
+
+  @Param
+  public Shape shape;
+
+  private StructureData data;
+  private StructureData rotated;
+  private Object[] palette;
+  private MemoryWorld world;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    data = shape.create();
+    rotated = data.rotated(1);
+    // Palette entries stand in for block data; like block data, there is one instance per state.
+    palette = data.palette.toArray();
+    world = new MemoryWorld();
+    paste(data, PasteMode.REPLACE);
+  }
+
+  private PasteResult paste(StructureData data, PasteMode mode) {
+    return new PasteEngine<>(data.blocks, palette, world, 0, 0, 0, mode).run();
+  }
+
+  @Benchmark
+  public int paste() {
+    return paste(data, PasteMode.REPLACE).blocks;
+  }
+
+  @Benchmark
+  public int pasteRotated() {
+    return paste(rotated, PasteMode.REPLACE).blocks;
+  }
+
+  @Benchmark
+  public int pasteDiff() {
+    return paste(data, PasteMode.DIFF).skipped;
+  }
+
+}
@@ -0,0 +1,126 @@
+package io.vevox.vx.structures;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The synthetic structures benchmarked. Every shape is generated from a fixed seed, so runs are comparable with each
+ * other and with the stored baseline.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+public enum Shape {
+
+  /**
+   * A 64x64x64 build, solid throughout, of a dozen states laid out in layers and runs like terrain or a building.
+   */
+  DENSE(64, 64, 64) {
+    @Override
+    void generate(BlockStorage blocks, List<PaletteEntry> palette, Random random) {
+      for (int i = 0; i < 12; i++)
+        palette.add(entry(BLOCKS[i], "variant", "default"));
+      for (int y = 0; y < blocks.sizeY; y++)
+        for (int z = 0; z < blocks.sizeZ; z++) {
+          int state = y / 8 + random.nextInt(5);
+          for (int x = 0; x < blocks.sizeX; x++) {
+            if (random.nextInt(16) == 0) state = y / 8 + random.nextInt(5);
+            blocks.set(x, y, z, state);
+          }
+        }
+    }
+  },
+
+  /**
+   * A 96x96x96 box that is almost all air, holding a few scattered solid clusters.
+   */
+  SPARSE(96, 96, 96) {
+    @Override
+    void generate(BlockStorage blocks, List<PaletteEntry> palette, Random random) {
+      palette.add(entry("minecraft:air"));
+      for (int i = 0; i < 8; i++)
+        palette.add(entry(BLOCKS[i]));
+      blocks.fill(0, 0, 0, blocks.sizeX - 1, blocks.sizeY - 1, blocks.sizeZ - 1, 0);
+      for (int cluster = 0; cluster < 12; cluster++) {
+        int x = random.nextInt(blocks.sizeX - 8), y = random.nextInt(blocks.sizeY - 8);
+        int z = random.nextInt(blocks.sizeZ - 8);
+        blocks.fill(x, y, z, x + 7, y + 7, z + 7, 1 + random.nextInt(8));
+      }
+    }
+  },
+
+  /**
+   * A 64x64x64 build in which almost every block has its own state, such as signs, banners or heads with many
+   * property combinations.
+   */
+  HIGH_CARDINALITY(64, 64, 64) {
+    @Override
+    void generate(BlockStorage blocks, List<PaletteEntry> palette, Random random) {
+      for (int i = 0; i < 4096; i++)
+        palette.add(entry(BLOCKS[i % BLOCKS.length], "rotation", Integer.toString(i / BLOCKS.length),
+            "facing", FACINGS[i % FACINGS.length]));
+      for (int i = 0; i < blocks.volume(); i++)
+        blocks.set(i % blocks.sizeX, i / (blocks.sizeX * blocks.sizeZ), (i / blocks.sizeX) % blocks.sizeZ,
+            random.nextInt(palette.size()));
+    }
+  },
+
+  /**
+   * A 128x64x128 build of over a million blocks, like {@link #DENSE} but with a larger palette.
+   */
+  LARGE(128, 64, 128) {
+    @Override
+    void generate(BlockStorage blocks, List<PaletteEntry> palette, Random random) {
+      for (int i = 0; i < 40; i++)
+        palette.add(entry(BLOCKS[i % BLOCKS.length], "variant", Integer.toString(i)));
+      for (int y = 0; y < blocks.sizeY; y++)
+        for (int z = 0; z < blocks.sizeZ; z++) {
+          int state = random.nextInt(palette.size());
+          for (int x = 0; x < blocks.sizeX; x++) {
+            if (random.nextInt(8) == 0) state = random.nextInt(palette.size());
+            blocks.set(x, y, z, state);
+          }
+        }
+    }
+  };
+
+  private static final String[] BLOCKS = {"minecraft:stone", "minecraft:dirt", "minecraft:grass", "minecraft:planks",
+      "minecraft:log", "minecraft:cobblestone", "minecraft:glass", "minecraft:wool", "minecraft:stonebrick",
+      "minecraft:sandstone", "minecraft:brick_block", "minecraft:quartz_block", "minecraft:oak_stairs"};
+  private static final String[] FACINGS = {"north", "east", "south", "west"};
+
+  private final int sizeX, sizeY, sizeZ;
+
+  Shape(int sizeX, int sizeY, int sizeZ) {
+    this.sizeX = sizeX;
+    this.sizeY = sizeY;
+    this.sizeZ = sizeZ;
+  }
+
+  abstract void generate(BlockStorage blocks, List<PaletteEntry> palette, Random random);
+
+  /**
+   * Generates this shape, stored the same way a loaded structure would be.
+   *
+   * @return The structure data.
+   */
+  StructureData create() {
+    BlockStorage blocks = new DenseBlockStorage(sizeX, sizeY, sizeZ);
+    List<PaletteEntry> palette = new ArrayList<>();
+    generate(blocks, palette, new Random(ordinal()));
+    return new StructureData("benchmark", 1, BlockStorage.compact(blocks, palette.size()), palette);
+  }
+
+  private static PaletteEntry entry(String name, String... properties) {
+    if (properties.length == 0) return new PaletteEntry(name, Collections.emptyMap());
+    Map<String, String> map = new HashMap<>();
+    for (int i = 0; i < properties.length; i += 2)
+      map.put(properties[i], properties[i + 1]);
+    return new PaletteEntry(name, map);
+  }
+
+}
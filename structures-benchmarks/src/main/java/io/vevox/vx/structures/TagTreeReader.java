@@ -0,0 +1,120 @@
+package io.vevox.vx.structures;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.vevox.vx.structures.NBTStreamReader.*;
+
+/**
+ * Reads structure files the way the server does, as a reference for {@link NBTStructureReader}: the whole file is
+ * first decoded into a tree of tags, with a map per compound and a list per list, and only then copied into a
+ * storage and palette.
+ * <p>
+ * This is the path structures were read through before the streaming reader, minus the server's own tag classes,
+ * which cannot be loaded outside of a server.
+ *
+ * @author Matthew Struble
+ * @see IOBenchmark#readTagTree()
+ * @since 0.1.0
+ */
+final class TagTreeReader {
+
+  private TagTreeReader() {
+  }
+
+  /**
+   * Reads a compressed structure from the given stream, closing it afterwards.
+   *
+   * @param input The stream to read from.
+   *
+   * @return The structure data.
+   * @throws IOException If the data is not a valid structure, or on read errors.
+   */
+  @SuppressWarnings("unchecked")
+  static StructureData read(InputStream input) throws IOException {
+    Map<String, Object> root;
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(CompressionCodec.detect(input)))) {
+      if (in.readByte() != TAG_COMPOUND) throw new IOException("Root tag must be a compound");
+      in.readUTF();
+      root = (Map<String, Object>) readPayload(in, TAG_COMPOUND);
+    }
+
+    List<Object> size = (List<Object>) root.get("size");
+    if (size == null || size.size() != 3) throw new IOException("Structure has no size");
+    BlockStorage blocks = new DenseBlockStorage((Integer) size.get(0), (Integer) size.get(1), (Integer) size.get(2));
+
+    List<PaletteEntry> palette = new ArrayList<>();
+    for (Object entry : (List<Object>) root.get("palette")) {
+      Map<String, Object> compound = (Map<String, Object>) entry;
+      Map<String, String> properties = new HashMap<>();
+      Map<String, Object> tags = (Map<String, Object>) compound.get("Properties");
+      if (tags != null) for (Map.Entry<String, Object> tag : tags.entrySet())
+        properties.put(tag.getKey(), (String) tag.getValue());
+      palette.add(PaletteEntry.read((String) compound.get("Name"), properties));
+    }
+
+    for (Object entry : (List<Object>) root.get("blocks")) {
+      Map<String, Object> block = (Map<String, Object>) entry;
+      List<Object> pos = (List<Object>) block.get("pos");
+      blocks.set((Integer) pos.get(0), (Integer) pos.get(1), (Integer) pos.get(2), (Integer) block.get("state"));
+    }
+
+    Object author = root.get("author"), version = root.get("version");
+    return new StructureData(author == null ? "" : (String) author, version == null ? 0 : (Integer) version,
+        BlockStorage.compact(blocks, palette.size()), palette);
+  }
+
+  private static Object readPayload(DataInputStream in, byte type) throws IOException {
+    switch (type) {
+      case TAG_BYTE:
+        return in.readByte();
+      case TAG_SHORT:
+        return in.readShort();
+      case TAG_INT:
+        return in.readInt();
+      case TAG_LONG:
+        return in.readLong();
+      case TAG_FLOAT:
+        return in.readFloat();
+      case TAG_DOUBLE:
+        return in.readDouble();
+      case TAG_BYTE_ARRAY: {
+        byte[] array = new byte[in.readInt()];
+        in.readFully(array);
+        return array;
+      }
+      case TAG_STRING:
+        return in.readUTF();
+      case TAG_LIST: {
+        byte elementType = in.readByte();
+        int length = in.readInt();
+        List<Object> list = new ArrayList<>(Math.max(length, 0));
+        for (int i = 0; i < length; i++)
+          list.add(readPayload(in, elementType));
+        return list;
+      }
+      case TAG_COMPOUND: {
+        Map<String, Object> compound = new HashMap<>();
+        byte tagType;
+        while ((tagType = in.readByte()) != TAG_END)
+          compound.put(in.readUTF(), readPayload(in, tagType));
+        return compound;
+      }
+      case TAG_INT_ARRAY: {
+        int[] array = new int[in.readInt()];
+        for (int i = 0; i < array.length; i++)
+          array[i] = in.readInt();
+        return array;
+      }
+      default:
+        throw new IOException("Unknown tag type " + type);
+    }
+  }
+
+}
@@ -0,0 +1,61 @@
+package io.vevox.vx.structures;
+
+import net.minecraft.server.v1_10_R1.Block;
+import net.minecraft.server.v1_10_R1.IBlockData;
+import net.minecraft.server.v1_10_R1.IBlockState;
+import net.minecraft.server.v1_10_R1.MinecraftKey;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converts between {@link PaletteEntry palette entries} and the server's block data.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+final class BlockStates {
+
+  private BlockStates() {
+  }
+
+  /**
+   * Gets the palette entry of the given block data.
+   *
+   * @param data The block data.
+   *
+   * @return The palette entry.
+   */
+  @SuppressWarnings("unchecked")
+  static PaletteEntry entry(IBlockData data) {
+    Map<String, String> properties = new HashMap<>();
+    for (IBlockState state : data.r())
+      properties.put(state.a(), state.a(data.get(state)));
+    // Entries are named by registry key, such as minecraft:stone, as vanilla files are, not by display name.
+    return new PaletteEntry(Block.REGISTRY.b(data.getBlock()).toString(), properties);
+  }
+
+  /**
+   * Resolves the given palette entry to block data. Properties the block does not have, or values it does not accept,
+   * are ignored.
+   *
+   * @param entry The palette entry.
+   *
+   * @return The block data.
+   */
+  @SuppressWarnings("unchecked")
+  static IBlockData resolve(PaletteEntry entry) {
+    Block block = Block.REGISTRY.get(new MinecraftKey(entry.name));
+    IBlockData data = block.getBlockData();
+
+    for (IBlockState<?> state : block.t().d()) {
+      String value = entry.properties.get(state.a());
+      if (value == null) continue;
+      @SuppressWarnings("Guava")
+      com.google.common.base.Optional<?> parsed = state.b(value);
+      if (parsed.isPresent()) data = data.set((IBlockState) state, (Comparable) parsed.get());
+    }
+    return data;
+  }
+
+}
@@ -0,0 +1,112 @@
+package io.vevox.vx.structures;
+
+import net.minecraft.server.v1_10_R1.Block;
+import net.minecraft.server.v1_10_R1.Blocks;
+import net.minecraft.server.v1_10_R1.Chunk;
+import net.minecraft.server.v1_10_R1.ChunkSection;
+import net.minecraft.server.v1_10_R1.IBlockData;
+import net.minecraft.server.v1_10_R1.WorldServer;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Captures the blocks of a region of a world into a {@link BlockStorage} and a palette of block data.
+ * <p>
+ * The region is read straight out of the {@link ChunkSection}s that cover it, one 16x16x16 section at a time. Sections
+ * that are missing or hold only air are filled with air without being read, and structure voids and blocks are
+ * filtered by block identity.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+final class CaptureEngine {
+
+  private final BlockStorage blocks;
+  private final List<IBlockData> states;
+
+  // Block data instances are shared per state, so identity is enough to tell states apart.
+  private final Map<IBlockData, Integer> stateIndices = new IdentityHashMap<>();
+
+  /**
+   * Creates a capture into the given storage and palette. The palette should be empty.
+   *
+   * @param blocks The storage to capture into. Its size is the size of the captured region.
+   * @param states The palette to add captured states to.
+   */
+  CaptureEngine(BlockStorage blocks, List<IBlockData> states) {
+    this.blocks = blocks;
+    this.states = states;
+  }
+
+  /**
+   * Captures the region of the given world with its minimum corner at the given position.
+   *
+   * @param world   The world to capture from.
+   * @param cornerX The minimum X position.
+   * @param cornerY The minimum Y position.
+   * @param cornerZ The minimum Z position.
+   */
+  void capture(WorldServer world, int cornerX, int cornerY, int cornerZ) {
+    int maxX = cornerX + blocks.sizeX - 1, maxY = cornerY + blocks.sizeY - 1, maxZ = cornerZ + blocks.sizeZ - 1;
+
+    for (int chunkX = cornerX >> 4; chunkX <= maxX >> 4; chunkX++)
+      for (int chunkZ = cornerZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+        Chunk chunk = world.getChunkAt(chunkX, chunkZ);
+        ChunkSection[] sections = chunk.getSections();
+
+        int fromX = Math.max(chunkX << 4, cornerX), toX = Math.min((chunkX << 4) + 15, maxX);
+        int fromZ = Math.max(chunkZ << 4, cornerZ), toZ = Math.min((chunkZ << 4) + 15, maxZ);
+
+        for (int sectionY = cornerY >> 4; sectionY <= maxY >> 4; sectionY++) {
+          int fromY = Math.max(sectionY << 4, cornerY), toY = Math.min((sectionY << 4) + 15, maxY);
+
+          ChunkSection section = sectionY >= 0 && sectionY < sections.length ? sections[sectionY] : null;
+          if (section == null || section.a())
+            blocks.fill(fromX - cornerX, fromY - cornerY, fromZ - cornerZ,
+                toX - cornerX, toY - cornerY, toZ - cornerZ, getStateIndex(Blocks.AIR.getBlockData()));
+          else
+            captureSection(section, cornerX, cornerY, cornerZ, fromX, fromY, fromZ, toX, toY, toZ);
+        }
+      }
+  }
+
+  private void captureSection(ChunkSection section, int cornerX, int cornerY, int cornerZ,
+                              int fromX, int fromY, int fromZ, int toX, int toY, int toZ) {
+    // Runs of the same state are common, so remember the last one to skip most map lookups.
+    IBlockData last = null;
+    int lastIndex = BlockStorage.EMPTY;
+
+    for (int y = fromY; y <= toY; y++)
+      for (int z = fromZ; z <= toZ; z++)
+        for (int x = fromX; x <= toX; x++) {
+          IBlockData data = section.getType(x & 15, y & 15, z & 15);
+          if (data != last) {
+            Block block = data.getBlock();
+            last = data;
+            lastIndex = block == Blocks.STRUCTURE_VOID || block == Blocks.STRUCTURE_BLOCK
+                ? BlockStorage.EMPTY : getStateIndex(data);
+          }
+          if (lastIndex != BlockStorage.EMPTY) blocks.set(x - cornerX, y - cornerY, z - cornerZ, lastIndex);
+        }
+  }
+
+  /**
+   * Gets the palette index of the given block data, adding it to the palette if it is new.
+   *
+   * @param data The block data.
+   *
+   * @return The palette index.
+   */
+  int getStateIndex(IBlockData data) {
+    Integer index = stateIndices.get(data);
+    if (index == null) {
+      index = states.size();
+      states.add(data);
+      stateIndices.put(data, index);
+    }
+    return index;
+  }
+
+}
@@ -0,0 +1,166 @@
+package io.vevox.vx.structures;
+
+import org.bukkit.Location;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A paste of a {@link Structure} that is spread over several server ticks.
+ * <p>
+ * Jobs are run by a single task per plugin, which shares one per-tick time budget between every job in progress and
+ * steps them in turn, one chunk section at a time, until the budget is used up. At least one section is always pasted
+ * per tick, so that pastes can never stall. Chunks are refreshed as soon as they are complete. Work deferred until the
+ * whole paste is in place, such as the update pass of a paste with
+ * {@link PasteOptions#suppressedPhysics(boolean) suppressed physics}, is stepped through in the same budget once the
+ * last section has been pasted. Jobs can be paused, resumed and cancelled from any thread, and report their outcome
+ * through {@link #getFuture()}.
+ * <p>
+ * A job that is cancelled or fails part-way through still ends its last chunk and runs the deferred work for the
+ * blocks it wrote, so that what has been pasted is lit, updated and recorded in its journal like a finished paste.
+ *
+ * @author Matthew Struble
+ * @see Structure#loadTo(Plugin, Location, long, PasteMode, UndoJournal)
+ * @since 0.1.0
+ */
+public final class PasteJob {
+
+  private final PasteEngine<?> engine;
+  private final long budgetNanos;
+  private final CompletableFuture<PasteResult> future = new CompletableFuture<>();
+
+  private volatile boolean paused, cancelled;
+  private volatile double progress;
+  private volatile PasteResult result;
+
+  PasteJob(PasteEngine<?> engine, long budgetMillis) {
+    this.engine = engine;
+    budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    result = engine.result();
+  }
+
+  PasteJob start(Plugin plugin) {
+    PasteScheduler.of(plugin).submit(this);
+    return this;
+  }
+
+  /**
+   * @return The per-tick time budget this job was started with, in nanoseconds.
+   */
+  long budgetNanos() {
+    return budgetNanos;
+  }
+
+  /**
+   * Takes the next step of this job, completing it if that was the last one. Called by the scheduler.
+   */
+  void step() {
+    try {
+      engine.step();
+    } catch (RuntimeException e) {
+      try {
+        engine.finish();
+      } catch (RuntimeException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      result = engine.result();
+      future.completeExceptionally(e);
+      return;
+    }
+
+    progress = engine.units() == 0 ? 1D : (double) engine.unitsDone() / engine.units();
+    result = engine.result();
+    if (!engine.hasNext()) future.complete(result);
+  }
+
+  /**
+   * Finishes this job once it is done and has been taken off the scheduler. If it was cancelled, the chunk it was
+   * pasting is sent, the paste is finished, and then the future is cancelled.
+   */
+  void close() {
+    try {
+      engine.finish();
+    } finally {
+      result = engine.result();
+    }
+    future.cancel(false);
+  }
+
+  /**
+   * Fails this job with an error thrown while closing it, unless its future has already completed.
+   *
+   * @param error The error.
+   *
+   * @return True if the job was failed, false if its future had already completed.
+   */
+  boolean fail(RuntimeException error) {
+    result = engine.result();
+    return future.completeExceptionally(error);
+  }
+
+  /**
+   * Gets how much of this paste has been completed, from <code>0</code> to <code>1</code>.
+   *
+   * @return The progress.
+   */
+  public double getProgress() {
+    return progress;
+  }
+
+  /**
+   * Gets the chunks and blocks written and skipped by this paste so far.
+   *
+   * @return The partial result.
+   */
+  public PasteResult getResult() {
+    return result;
+  }
+
+  /**
+   * Gets a future that completes with the result of this paste once it has finished, or is cancelled once a
+   * cancelled job has finished what it had pasted.
+   *
+   * @return The future.
+   */
+  public CompletableFuture<PasteResult> getFuture() {
+    return future;
+  }
+
+  /**
+   * Pauses this paste. Sections that have already been pasted are left as-is.
+   */
+  public void pause() {
+    paused = true;
+  }
+
+  /**
+   * Resumes this paste if it was paused.
+   */
+  public void resume() {
+    paused = false;
+  }
+
+  /**
+   * @return True if this job is paused.
+   */
+  public boolean isPaused() {
+    return paused;
+  }
+
+  /**
+   * Cancels this paste. Sections that have already been pasted are left as-is. The future is cancelled on the next
+   * tick, once the paste has been finished, or fails if finishing it fails.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * @return True if this paste has completed, failed, or been cancelled.
+   */
+  public boolean isDone() {
+    return cancelled || future.isDone();
+  }
+
+}
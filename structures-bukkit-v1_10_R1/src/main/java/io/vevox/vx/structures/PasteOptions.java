@@ -0,0 +1,147 @@
+package io.vevox.vx.structures;
+
+import com.google.common.base.Objects;
+import org.apache.commons.lang3.Validate;
+import org.bukkit.Material;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Options for how a paste treats the world around the blocks it writes, independently of its {@link PasteMode}.
+ * <p>
+ * Options are immutable. Each option is changed by a method that returns a copy, starting from {@link #DEFAULT}:
+ * <pre>
+ *   structure.loadTo(location, PasteMode.REPLACE, null, PasteOptions.DEFAULT.deferredLighting(true));
+ * </pre>
+ *
+ * @author Matthew Struble
+ * @see Structure#loadTo(org.bukkit.Location, PasteMode, UndoJournal, PasteOptions)
+ * @since 0.1.0
+ */
+@SuppressWarnings("unused WeakerAccess")
+public final class PasteOptions {
+
+  /**
+   * The options used by pastes that are not given any, matching how blocks are written by the server itself.
+   */
+  public static final PasteOptions DEFAULT = new PasteOptions(false, false, Collections.emptySet());
+
+  private final boolean deferredLighting, suppressedPhysics;
+  private final Set<Material> updatedTypes;
+
+  private PasteOptions(boolean deferredLighting, boolean suppressedPhysics, Set<Material> updatedTypes) {
+    this.deferredLighting = deferredLighting;
+    this.suppressedPhysics = suppressedPhysics;
+    this.updatedTypes = updatedTypes;
+  }
+
+  /**
+   * Returns a copy of these options with lighting deferred or not.
+   * <p>
+   * Normally, light is recalculated around every block as it is written, so a large structure is relit over and over
+   * while it is only partly built. With deferred lighting, blocks are written without touching light at all, and
+   * each chunk is relit once after all of its blocks have been written, against the finished structure. The chunk's
+   * height map and sky light are rebuilt in one pass, and only blocks that changed how much light they let through
+   * or give off are checked again. This is much faster for large or solid structures, but players may briefly see
+   * stale light in chunks that are still being pasted.
+   *
+   * @param deferred True to defer lighting until each chunk is complete.
+   *
+   * @return The new options.
+   */
+  public PasteOptions deferredLighting(boolean deferred) {
+    return new PasteOptions(deferred, suppressedPhysics, updatedTypes);
+  }
+
+  /**
+   * Returns a copy of these options with physics suppressed or not.
+   * <p>
+   * Normally, each block runs its placement behaviour as it is written, and replaced blocks run their removal
+   * behaviour. Pasting redstone, falling blocks, liquids or attachables one block at a time then sets off updates
+   * while much of the structure is still missing: sand falls into gaps that are about to be filled, torches pop off
+   * walls that are not there yet, and containers spill their contents. With physics suppressed, blocks are written
+   * without any of this, and tile entities are created and removed quietly. Once the whole paste is in place, a single
+   * update pass is made from the bottom up: blocks written on the edges of the paste notify their neighbours, so the
+   * world around the paste reacts to it, and written blocks of the {@link #updating(Material...) updated types} run
+   * their placement behaviour.
+   * <p>
+   * Since suppressing physics writes blocks straight into the chunk sections, it also defers lighting.
+   *
+   * @param suppressed True to suppress physics until the paste is complete.
+   *
+   * @return The new options.
+   */
+  public PasteOptions suppressedPhysics(boolean suppressed) {
+    return new PasteOptions(deferredLighting, suppressed, updatedTypes);
+  }
+
+  /**
+   * Returns a copy of these options that updates written blocks of the given types once the paste is complete, when
+   * {@link #suppressedPhysics(boolean) physics are suppressed}. Blocks inside the paste are not updated otherwise, so
+   * types that must react to the finished structure, such as falling blocks, liquids and redstone, should be given.
+   *
+   * @param types The types to update, replacing any given before. None to only update the edges of the paste.
+   *
+   * @return The new options.
+   * @throws IllegalArgumentException If any type is null or not a block.
+   */
+  public PasteOptions updating(Material... types) throws IllegalArgumentException {
+    Validate.noNullElements(types);
+    Set<Material> updated = EnumSet.noneOf(Material.class);
+    for (Material type : types) {
+      Validate.isTrue(type.isBlock(), "Not a block type: %s", type);
+      updated.add(type);
+    }
+    return new PasteOptions(deferredLighting, suppressedPhysics, Collections.unmodifiableSet(updated));
+  }
+
+  /**
+   * @return True if lighting is deferred until each chunk is complete, either directly or by suppressing physics.
+   * @see #deferredLighting(boolean)
+   */
+  public boolean isLightingDeferred() {
+    return deferredLighting || suppressedPhysics;
+  }
+
+  /**
+   * @return True if physics are suppressed until the paste is complete.
+   * @see #suppressedPhysics(boolean)
+   */
+  public boolean isPhysicsSuppressed() {
+    return suppressedPhysics;
+  }
+
+  /**
+   * @return The types of written blocks that are updated once the paste is complete, if physics are suppressed.
+   * @see #updating(Material...)
+   */
+  public Set<Material> getUpdatedTypes() {
+    return updatedTypes;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof PasteOptions)) return false;
+    PasteOptions other = (PasteOptions) o;
+    return deferredLighting == other.deferredLighting && suppressedPhysics == other.suppressedPhysics
+        && updatedTypes.equals(other.updatedTypes);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(deferredLighting, suppressedPhysics, updatedTypes);
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+        .add("deferredLighting", deferredLighting)
+        .add("suppressedPhysics", suppressedPhysics)
+        .add("updatedTypes", updatedTypes)
+        .toString();
+  }
+
+}
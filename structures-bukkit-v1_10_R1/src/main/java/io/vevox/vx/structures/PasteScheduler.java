@@ -0,0 +1,137 @@
+package io.vevox.vx.structures;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * Runs every {@link PasteJob} of a plugin from a single repeating task, so that any number of concurrent pastes share
+ * one per-tick time budget instead of each spending its own.
+ * <p>
+ * Each tick, the jobs are stepped one chunk section at a time in round-robin order until the budget is used up, always
+ * stepping at least one section so that pastes can never stall. The next tick carries on with the job after the last
+ * one stepped, so no job is starved by the others. The budget is the largest of the budgets the queued jobs were
+ * started with. The task is only scheduled while there are jobs to run. A job that fails while it is being finished
+ * fails on its own, and the others carry on.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+final class PasteScheduler implements Runnable {
+
+  // Keyed by name, as each scheduler holds on to its plugin. A reloaded plugin replaces the scheduler of the old one.
+  private static final Map<String, PasteScheduler> SCHEDULERS = new HashMap<>();
+
+  private final Plugin plugin;
+
+  // Queued jobs, in the order they take their next step. Guarded by this scheduler.
+  private final Deque<PasteJob> jobs = new ArrayDeque<>();
+  private BukkitTask task;
+
+  private PasteScheduler(Plugin plugin) {
+    this.plugin = plugin;
+  }
+
+  /**
+   * Gets the scheduler that runs the paste jobs of the given plugin.
+   *
+   * @param plugin The plugin.
+   *
+   * @return The scheduler.
+   */
+  static PasteScheduler of(Plugin plugin) {
+    synchronized (SCHEDULERS) {
+      PasteScheduler scheduler = SCHEDULERS.get(plugin.getName());
+      if (scheduler == null || scheduler.plugin != plugin) {
+        scheduler = new PasteScheduler(plugin);
+        SCHEDULERS.put(plugin.getName(), scheduler);
+      }
+      return scheduler;
+    }
+  }
+
+  /**
+   * Queues a job to be run from the next tick on, scheduling the task if it is not already running.
+   *
+   * @param job The job.
+   */
+  synchronized void submit(PasteJob job) {
+    jobs.add(job);
+    // Tasks are cancelled along with their plugin, so a task left over from before a reload must be replaced.
+    if (task == null || !plugin.getServer().getScheduler().isQueued(task.getTaskId()))
+      task = plugin.getServer().getScheduler().runTaskTimer(plugin, this, 1L, 1L);
+  }
+
+  @Override
+  public void run() {
+    long start = System.nanoTime(), deadline = start + budgetNanos();
+    boolean stepped = false;
+
+    // Paused jobs are passed over, and once every queued job has been passed over in a row there is nothing to run.
+    int passed = 0;
+    PasteJob job;
+    while ((job = next()) != null) {
+      if (job.isDone()) {
+        close(job);
+        continue;
+      }
+      if (job.isPaused()) {
+        requeue(job);
+        if (++passed >= size()) break;
+        continue;
+      }
+
+      job.step();
+      stepped = true;
+      passed = 0;
+      if (job.isDone()) close(job);
+      else requeue(job);
+      if (System.nanoTime() >= deadline) break;
+    }
+
+    if (stepped && Metrics.isEnabled()) {
+      long used = System.nanoTime() - start;
+      Metrics.PASTE_TICK.record(used);
+      if (used > deadline - start) Metrics.BUDGET_OVERRUNS.increment();
+    }
+  }
+
+  private void close(PasteJob job) {
+    try {
+      job.close();
+    } catch (RuntimeException e) {
+      // Jobs that completed or failed while stepping already have their outcome, so all that is left is to report it.
+      if (!job.fail(e)) plugin.getLogger().log(Level.WARNING, "Failed to finish a paste", e);
+    }
+  }
+
+  private synchronized long budgetNanos() {
+    long budget = 0;
+    for (PasteJob job : jobs)
+      budget = Math.max(budget, job.budgetNanos());
+    return budget;
+  }
+
+  private synchronized PasteJob next() {
+    PasteJob job = jobs.poll();
+    if (job == null && task != null) {
+      task.cancel();
+      task = null;
+    }
+    return job;
+  }
+
+  private synchronized void requeue(PasteJob job) {
+    jobs.add(job);
+  }
+
+  private synchronized int size() {
+    return jobs.size();
+  }
+
+}
@@ -0,0 +1,154 @@
+package io.vevox.vx.structures;
+
+import net.minecraft.server.v1_10_R1.Block;
+import net.minecraft.server.v1_10_R1.Blocks;
+import net.minecraft.server.v1_10_R1.IBlockData;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Captures a region of a world from chunk snapshots, so that the bulk of the work can happen off the main thread.
+ * <p>
+ * Creating a capture takes a {@link ChunkSnapshot} of every chunk column the region covers, which must be done on
+ * the main thread but only copies the chunks' block arrays. {@link #run()} can then be called from any thread: it
+ * scans each column in its own fork-join task, building a palette local to that column, and finally merges the
+ * column palettes and blocks into a single {@link BlockStorage} and palette.
+ *
+ * @author Matthew Struble
+ * @see Structure#captureAsync(String, int, org.bukkit.Location, org.bukkit.util.Vector)
+ * @since 0.1.0
+ */
+final class SnapshotCapture {
+
+  final BlockStorage blocks;
+  final List<IBlockData> states = new ArrayList<>();
+
+  private final int cornerX, cornerY, cornerZ;
+  private final int maxHeight;
+  private final List<Column> columns = new ArrayList<>();
+
+  /**
+   * Snapshots the chunks covering the given region. Must be called on the main thread.
+   *
+   * @param world   The world to capture from.
+   * @param cornerX The minimum X position.
+   * @param cornerY The minimum Y position.
+   * @param cornerZ The minimum Z position.
+   * @param blocks  The storage to capture into. Its size is the size of the captured region.
+   */
+  SnapshotCapture(World world, int cornerX, int cornerY, int cornerZ, BlockStorage blocks) {
+    this.blocks = blocks;
+    this.cornerX = cornerX;
+    this.cornerY = cornerY;
+    this.cornerZ = cornerZ;
+    maxHeight = world.getMaxHeight();
+
+    int maxX = cornerX + blocks.sizeX - 1, maxZ = cornerZ + blocks.sizeZ - 1;
+    for (int chunkX = cornerX >> 4; chunkX <= maxX >> 4; chunkX++)
+      for (int chunkZ = cornerZ >> 4; chunkZ <= maxZ >> 4; chunkZ++)
+        columns.add(new Column(world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false),
+            Math.max(chunkX << 4, cornerX), Math.min((chunkX << 4) + 15, maxX),
+            Math.max(chunkZ << 4, cornerZ), Math.min((chunkZ << 4) + 15, maxZ)));
+  }
+
+  /**
+   * Scans every snapshot in parallel and merges the results into {@link #blocks} and {@link #states}. Should be
+   * called from a fork-join pool so that the per-column tasks run in that pool.
+   */
+  void run() {
+    ForkJoinTask.invokeAll(columns);
+
+    CaptureEngine merge = new CaptureEngine(blocks, states);
+    for (Column column : columns) {
+      int[] remap = new int[column.states.size()];
+      for (int i = 0; i < remap.length; i++)
+        remap[i] = merge.getStateIndex(column.states.get(i));
+
+      int i = 0;
+      for (int y = 0; y < blocks.sizeY; y++)
+        for (int z = column.fromZ; z <= column.toZ; z++)
+          for (int x = column.fromX; x <= column.toX; x++) {
+            int state = column.cells[i++];
+            if (state != BlockStorage.EMPTY) blocks.set(x - cornerX, y, z - cornerZ, remap[state]);
+          }
+      column.cells = null;
+    }
+  }
+
+  /**
+   * Scans one chunk column of the region into a palette and cell array local to that column.
+   */
+  private final class Column extends RecursiveAction {
+
+    final ChunkSnapshot snapshot;
+    final int fromX, toX, fromZ, toZ;
+
+    final List<IBlockData> states = new ArrayList<>();
+    int[] cells;
+
+    private final Map<IBlockData, Integer> stateIndices = new IdentityHashMap<>();
+
+    Column(ChunkSnapshot snapshot, int fromX, int toX, int fromZ, int toZ) {
+      this.snapshot = snapshot;
+      this.fromX = fromX;
+      this.toX = toX;
+      this.fromZ = fromZ;
+      this.toZ = toZ;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    protected void compute() {
+      int row = toX - fromX + 1;
+      cells = new int[row * (toZ - fromZ + 1) * blocks.sizeY];
+
+      // Runs of the same block are common, so remember the last one to skip most lookups.
+      int last = -1, lastIndex = BlockStorage.EMPTY;
+
+      int i = 0;
+      for (int y = 0; y < blocks.sizeY; y++) {
+        int worldY = cornerY + y;
+        if (worldY < 0 || worldY >= maxHeight || snapshot.isSectionEmpty(worldY >> 4)) {
+          int length = row * (toZ - fromZ + 1);
+          Arrays.fill(cells, i, i + length, getStateIndex(Blocks.AIR.getBlockData()));
+          i += length;
+          continue;
+        }
+
+        for (int z = fromZ; z <= toZ; z++)
+          for (int x = fromX; x <= toX; x++) {
+            int id = snapshot.getBlockTypeId(x & 15, worldY, z & 15);
+            int meta = snapshot.getBlockData(x & 15, worldY, z & 15);
+            int combined = id << 4 | meta;
+            if (combined != last) {
+              Block block = Block.getById(id);
+              last = combined;
+              lastIndex = block == Blocks.STRUCTURE_VOID || block == Blocks.STRUCTURE_BLOCK
+                  ? BlockStorage.EMPTY : getStateIndex(block.fromLegacyData(meta));
+            }
+            cells[i++] = lastIndex;
+          }
+      }
+    }
+
+    private int getStateIndex(IBlockData data) {
+      Integer index = stateIndices.get(data);
+      if (index == null) {
+        index = states.size();
+        states.add(data);
+        stateIndices.put(data, index);
+      }
+      return index;
+    }
+
+  }
+
+}
@@ -0,0 +1,72 @@
+package io.vevox.vx.structures;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The <code>/vxs stats [reset]</code> command, which shows or resets the {@link Metrics} of the plugin.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+final class StatsCommand implements CommandExecutor {
+
+  private final vxStructures plugin;
+
+  StatsCommand(vxStructures plugin) {
+    this.plugin = plugin;
+  }
+
+  @Override
+  public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+    if (args.length == 0 || !args[0].equalsIgnoreCase("stats") || args.length > 2) return false;
+
+    if (args.length == 2) {
+      if (!args[1].equalsIgnoreCase("reset")) return false;
+      Metrics.reset();
+      sender.sendMessage("Structure metrics have been reset.");
+      return true;
+    }
+
+    if (!Metrics.isEnabled())
+      sender.sendMessage("Metrics are disabled. Set metrics.enabled in the config to record them.");
+
+    sender.sendMessage(String.format("Decode: %s, %s read", timer(Metrics.DECODE), bytes(Metrics.BYTES_READ.get())));
+    sender.sendMessage(String.format("Encode: %s, %s written", timer(Metrics.ENCODE),
+        bytes(Metrics.BYTES_WRITTEN.get())));
+    sender.sendMessage(String.format("Paste: %s, %d blocks written, %d skipped, %d chunks touched",
+        timer(Metrics.PASTE), Metrics.BLOCKS_WRITTEN.get(), Metrics.BLOCKS_SKIPPED.get(),
+        Metrics.CHUNKS_TOUCHED.get()));
+
+    long budget = TimeUnit.MILLISECONDS.toNanos(plugin.getPasteBudget());
+    sender.sendMessage(String.format("Paste ticks: %s, %.0f%% of the %d ms budget on average, %d over budget",
+        timer(Metrics.PASTE_TICK), 100D * Metrics.PASTE_TICK.getMeanNanos() / budget, plugin.getPasteBudget(),
+        Metrics.BUDGET_OVERRUNS.get()));
+
+    long hits = Metrics.CACHE_HITS.get(), lookups = hits + Metrics.CACHE_MISSES.get();
+    StructureCache cache = plugin.getStructureCache();
+    sender.sendMessage(String.format("Cache: %d hits, %d misses (%.0f%% hit rate), %s of %s held",
+        hits, lookups - hits, lookups == 0 ? 0D : 100D * hits / lookups, bytes(cache.getEstimatedBytes()),
+        bytes(cache.getBudget())));
+    return true;
+  }
+
+  private static String timer(Metrics.Timer timer) {
+    return String.format("%d in %.1f ms (mean %.2f ms, max %.2f ms)", timer.getCount(), millis(timer.getTotalNanos()),
+        millis(timer.getMeanNanos()), millis(timer.getMaxNanos()));
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1e6;
+  }
+
+  private static String bytes(long bytes) {
+    if (bytes < 1 << 10) return bytes + " B";
+    if (bytes < 1 << 20) return String.format("%.1f KiB", bytes / 1024D);
+    return String.format("%.1f MiB", bytes / (1024D * 1024));
+  }
+
+}
@@ -0,0 +1,814 @@
+package io.vevox.vx.structures;
+
+import com.google.common.base.*;
+import com.google.common.base.Objects;
+import net.minecraft.server.v1_10_R1.*;
+import net.minecraft.server.v1_10_R1.Block;
+import net.minecraft.server.v1_10_R1.Chunk;
+import org.apache.commons.lang3.Validate;
+import org.bukkit.*;
+import org.bukkit.craftbukkit.v1_10_R1.CraftWorld;
+import org.bukkit.craftbukkit.v1_10_R1.inventory.CraftItemStack;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.util.Vector;
+
+import java.io.*;
+import java.util.*;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A "Structure" is any collection of blocks created by the <code>Structure Block</code> or by this plug-in and contains
+ * a three-dimensional matrix of blocks than can be saved and loaded as needed.
+ * <p>
+ * The blocks and palette themselves are held by a server-independent {@link StructureData}; a structure adds the
+ * palette resolved to this server's block data, and everything that touches a world.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+@SuppressWarnings("unused WeakerAccess")
+public class Structure implements Cloneable {
+
+  /**
+   * Mirroring of the loading structure.
+   */
+  public enum Mirror {
+    NONE, LEFT_RIGHT, FRONT_BACK
+  }
+
+  /**
+   * Rotation of the loading structure.
+   */
+  public enum Rotation {
+    R_0, R_90, R_180, R_270;
+
+    int deg() {
+      switch (this) {
+        case R_90:
+          return 90;
+        case R_180:
+          return 180;
+        case R_270:
+          return 270;
+        default:
+          return 0;
+      }
+    }
+  }
+
+  public final String author;
+  public final int version;
+
+  public final Vector size;
+
+  private final StructureData data;
+  // TODO Entities?
+
+  // The palette resolved to block data in each orientation it has been needed in. Shared by every view of the same
+  // palette, so that rotating a structure back and forth never resolves or turns a block state twice.
+  private final Map<Orientation, IBlockData[]> resolvedPalettes;
+
+  /**
+   * Loads a structure from the given file, ignoring size/complexity restrictions of the vanilla block.
+   * <p>
+   * The format of the file is detected from its contents. {@link StructureFormat#VXS} files are memory-mapped rather
+   * than read, so their blocks are only read from disk as they are used.
+   *
+   * @param file The file to load from.
+   *
+   * @throws java.io.FileNotFoundException If the file could not be found.
+   * @throws IOException                   General I/O read errors.
+   * @see Structure#Structure(InputStream)
+   * @see Structure#Structure(String, int, Location, Vector)
+   * @since 0.1.0
+   */
+  public Structure(File file) throws IOException {
+    this(StructureData.read(file));
+  }
+
+  /**
+   * Loads only the given region of the structure in the given file. The loaded structure has the size of the region,
+   * and its blocks are positioned relative to the region's minimum corner.
+   * <p>
+   * {@link StructureFormat#VXS} files are mapped and viewed through their tile table, so tiles outside of the region
+   * are never read. Other files are decoded as a stream, keeping only the blocks that fall inside the region.
+   *
+   * @param file The file to load from.
+   * @param from The minimum corner of the region, relative to the structure.
+   * @param size The size of the region. Must be all positive non-zeros.
+   *
+   * @throws java.io.FileNotFoundException If the file could not be found.
+   * @throws IOException                   General I/O read errors.
+   * @throws IllegalArgumentException      If the file, corner, or size is null, or the region does not lie within the
+   *                                       stored structure.
+   * @see #region(Vector, Vector)
+   * @since 0.1.0
+   */
+  public Structure(File file, Vector from, Vector size) throws IOException, IllegalArgumentException {
+    this(loadRegion(file, from, size));
+  }
+
+  private static StructureData loadRegion(File file, Vector from, Vector size) throws IOException {
+    Validate.notNull(from);
+    Validate.notNull(size);
+    return StructureData.read(file, from.getBlockX(), from.getBlockY(), from.getBlockZ(),
+        size.getBlockX(), size.getBlockY(), size.getBlockZ());
+  }
+
+  /**
+   * Loaded a structure from the given input stream, ignoring size/complexity restrictions of the vanilla block.
+   * The {@link CompressionCodec} of the stream is detected from its first bytes.
+   *
+   * @param input The input stream to load from.
+   *
+   * @throws IOException              General I/O read errors.
+   * @throws IllegalArgumentException If the input stream is null.
+   * @see Structure#Structure(File)
+   * @see Structure#Structure(String, int, Location, Vector)
+   * @since 0.1.0
+   */
+  public Structure(InputStream input) throws IOException, IllegalArgumentException {
+    this(StructureData.read(input));
+  }
+
+  /**
+   * Creates a new Structure with the given <code>author</code> and <code>version</code> from the blocks
+   * at <code>corner</code> up to <code>size</code>. Any <code>minecraft:structure_void</code> or
+   * <code>minecraft:structure_block</code> blocks caught inside the region will not be saved, as per the functionality
+   * of the vanilla block.
+   * <p>
+   * <b>Note:</b> Unlike vanilla structure blocks, this method does not have a size or complexity limit. Be careful when
+   * saving large and/or complicated (many different blocks) structures, as this can create extremely large files.
+   *
+   * @param author  The author of the new structure.
+   * @param version The version of the new structure.
+   * @param corner  The starting corner location.
+   * @param size    The size to scan out to. Must be all positive non-zeros.
+   *
+   * @throws IllegalArgumentException If the author, corner, or size is null, the version is zero or less, or the
+   *                                  size vector is not all positive.
+   * @see Structure#Structure(File)
+   * @see Structure#Structure(InputStream)
+   * @since 0.1.0
+   */
+  public Structure(String author, int version, Location corner, Vector size) throws IllegalArgumentException {
+    Validate.notNull(author);
+    Validate.notNull(corner);
+    Validate.notNull(size);
+    Validate.isTrue(version > 0);
+    Validate.isTrue(size.getBlockX() > 0 && size.getBlockY() > 0 && size.getBlockZ() > 0);
+
+    BlockStorage blocks = BlockStorage.builder(size.getBlockX(), size.getBlockY(), size.getBlockZ());
+    List<IBlockData> states = new ArrayList<>();
+
+    WorldServer world = ((CraftWorld) corner.getWorld()).getHandle();
+    new CaptureEngine(blocks, states).capture(world, corner.getBlockX(), corner.getBlockY(), corner.getBlockZ());
+
+    this.author = author;
+    this.version = version;
+    this.size = size;
+    data = captured(author, version, blocks, states);
+    resolvedPalettes = new ConcurrentHashMap<>();
+    resolvedPalettes.put(Orientation.IDENTITY, states.toArray(new IBlockData[states.size()]));
+  }
+
+  /**
+   * Wraps the given structure data, resolving its palette when it is first needed.
+   *
+   * @param data The structure data.
+   */
+  Structure(StructureData data) {
+    this(data, new ConcurrentHashMap<>());
+  }
+
+  /**
+   * Wraps structure data built from the given block data, which is already resolved.
+   *
+   * @param author  The author of the structure.
+   * @param version The version of the structure.
+   * @param blocks  The palette indices of the blocks.
+   * @param states  The block data of each palette index.
+   */
+  Structure(String author, int version, BlockStorage blocks, List<IBlockData> states) {
+    this(captured(author, version, blocks, states), new ConcurrentHashMap<>());
+    resolvedPalettes.put(Orientation.IDENTITY, states.toArray(new IBlockData[states.size()]));
+  }
+
+  private Structure(StructureData data, Map<Orientation, IBlockData[]> resolvedPalettes) {
+    author = data.author;
+    version = data.version;
+    size = new Vector(data.sizeX, data.sizeY, data.sizeZ);
+    this.data = data;
+    this.resolvedPalettes = resolvedPalettes;
+  }
+
+  private static StructureData captured(String author, int version, BlockStorage blocks, List<IBlockData> states) {
+    List<PaletteEntry> palette = new ArrayList<>(states.size());
+    for (IBlockData state : states)
+      palette.add(BlockStates.entry(state));
+    return new StructureData(author, version, BlockStorage.compact(blocks, states.size()), palette);
+  }
+
+  /**
+   * Creates a new Structure from the blocks at <code>corner</code> up to <code>size</code> like
+   * {@link #Structure(String, int, Location, Vector)}, but does most of the work off the main thread.
+   * <p>
+   * Snapshots of the chunks in the region are taken immediately, so this <b>must</b> be called from the main thread.
+   * The snapshots are then scanned in parallel on the common fork-join pool, one task per chunk column.
+   *
+   * @param author  The author of the new structure.
+   * @param version The version of the new structure.
+   * @param corner  The starting corner location.
+   * @param size    The size to scan out to. Must be all positive non-zeros.
+   *
+   * @return A future that completes with the captured structure.
+   * @throws IllegalArgumentException If the author, corner, or size is null, the version is zero or less, or the
+   *                                  size vector is not all positive.
+   * @see #captureAsync(String, int, Location, Vector, ForkJoinPool)
+   * @since 0.1.0
+   */
+  public static CompletableFuture<Structure> captureAsync(String author, int version, Location corner, Vector size)
+      throws IllegalArgumentException {
+    return captureAsync(author, version, corner, size, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a new Structure from the blocks at <code>corner</code> up to <code>size</code> like
+   * {@link #Structure(String, int, Location, Vector)}, but does most of the work off the main thread.
+   * <p>
+   * Snapshots of the chunks in the region are taken immediately, so this <b>must</b> be called from the main thread.
+   * The snapshots are then scanned in parallel on the given pool, one task per chunk column.
+   *
+   * @param author  The author of the new structure.
+   * @param version The version of the new structure.
+   * @param corner  The starting corner location.
+   * @param size    The size to scan out to. Must be all positive non-zeros.
+   * @param pool    The pool to scan the snapshots on.
+   *
+   * @return A future that completes with the captured structure.
+   * @throws IllegalArgumentException If the author, corner, size or pool is null, the version is zero or less, or the
+   *                                  size vector is not all positive.
+   * @since 0.1.0
+   */
+  public static CompletableFuture<Structure> captureAsync(String author, int version, Location corner, Vector size,
+                                                          ForkJoinPool pool) throws IllegalArgumentException {
+    Validate.notNull(author);
+    Validate.notNull(corner);
+    Validate.notNull(size);
+    Validate.notNull(pool);
+    Validate.isTrue(version > 0);
+    Validate.isTrue(size.getBlockX() > 0 && size.getBlockY() > 0 && size.getBlockZ() > 0);
+
+    SnapshotCapture capture = new SnapshotCapture(corner.getWorld(), corner.getBlockX(), corner.getBlockY(),
+        corner.getBlockZ(), BlockStorage.builder(size.getBlockX(), size.getBlockY(), size.getBlockZ()));
+
+    return CompletableFuture.supplyAsync(() -> {
+      capture.run();
+      return new Structure(author, version, capture.blocks, capture.states);
+    }, pool);
+  }
+
+  private IBlockData getDataAt(int x, int y, int z) throws IndexOutOfBoundsException {
+    int state = data.getState(x, y, z);
+    return state == BlockStorage.EMPTY ? null : resolvedPalette()[state];
+  }
+
+  /**
+   * Gets the server-independent data of this structure. The palette of the data is not turned to match any rotation
+   * or mirroring of this structure, see {@link StructureData#getPalette()}.
+   *
+   * @return The structure data.
+   * @since 0.1.0
+   */
+  public StructureData getData() {
+    return data;
+  }
+
+  /**
+   * Estimates how many bytes of heap this structure retains: its blocks, its palette, and any resolved palette tables.
+   * Block data instances are shared by the whole server, and are not counted.
+   *
+   * @return The estimated size in bytes.
+   * @see StructureCache
+   */
+  long estimatedBytes() {
+    return data.estimatedBytes() + resolvedPalettes.size() * (16 + data.palette.size() * 8L);
+  }
+
+  /**
+   * Gets the palette of this structure resolved to block data and turned to match its rotation and mirroring, indexed
+   * the same as the palette itself. The table for each orientation is built only once, the first time it is needed,
+   * so pasting a rotated structure costs the same as pasting the original.
+   *
+   * @return The resolved palette. Must not be modified.
+   */
+  IBlockData[] resolvedPalette() {
+    return resolvedPalette(data.orientation);
+  }
+
+  private IBlockData[] resolvedPalette(Orientation orientation) {
+    IBlockData[] resolved = resolvedPalettes.get(orientation);
+    if (resolved != null) return resolved;
+
+    resolved = new IBlockData[data.palette.size()];
+    if (orientation.isIdentity()) {
+      for (int i = 0; i < resolved.length; i++)
+        resolved[i] = BlockStates.resolve(data.palette.get(i));
+    } else {
+      // Vanilla mirrors are named the other way around: its FRONT_BACK flips the X axis.
+      EnumBlockMirror mirror = orientation.isMirrored() ? EnumBlockMirror.FRONT_BACK : EnumBlockMirror.NONE;
+      EnumBlockRotation rotation = toBlockRotation(orientation.quarterTurns());
+      IBlockData[] unturned = resolvedPalette(Orientation.IDENTITY);
+      for (int i = 0; i < resolved.length; i++)
+        resolved[i] = unturned[i].a(mirror).a(rotation);
+    }
+
+    IBlockData[] existing = resolvedPalettes.putIfAbsent(orientation, resolved);
+    return existing != null ? existing : resolved;
+  }
+
+  private static EnumBlockRotation toBlockRotation(int quarterTurns) {
+    switch (quarterTurns) {
+      case 1:
+        return EnumBlockRotation.CLOCKWISE_90;
+      case 2:
+        return EnumBlockRotation.CLOCKWISE_180;
+      case 3:
+        return EnumBlockRotation.COUNTERCLOCKWISE_90;
+      default:
+        return EnumBlockRotation.NONE;
+    }
+  }
+
+  /**
+   * Gets the data as it should be saved, with the block states of a rotated or mirrored structure turned to match its
+   * blocks.
+   *
+   * @return The data.
+   */
+  private StructureData savedData() {
+    if (data.orientation.isIdentity()) return data;
+
+    List<PaletteEntry> turned = new ArrayList<>(data.palette.size());
+    for (IBlockData state : resolvedPalette())
+      turned.add(BlockStates.entry(state));
+    return data.withPalette(turned);
+  }
+
+  /**
+   * Returns a read-only view of the given region of this structure. The view has the size of the region, its blocks
+   * are positioned relative to the region's minimum corner, and it shares this structure's blocks rather than copying
+   * them.
+   *
+   * @param from The minimum corner of the region.
+   * @param size The size of the region. Must be all positive non-zeros.
+   *
+   * @return The view of the region.
+   * @throws IllegalArgumentException If the corner or size is null, or the region does not lie within this structure.
+   * @see #Structure(File, Vector, Vector)
+   * @since 0.1.0
+   */
+  public Structure region(Vector from, Vector size) throws IllegalArgumentException {
+    Validate.notNull(from);
+    Validate.notNull(size);
+    return new Structure(data.region(from.getBlockX(), from.getBlockY(), from.getBlockZ(),
+        size.getBlockX(), size.getBlockY(), size.getBlockZ()), resolvedPalettes);
+  }
+
+  /**
+   * Copies this structure to a new structure with the given author, incrementing the version by one.
+   *
+   * @param author The new author.
+   *
+   * @return The newly copied structure.
+   * @throws IllegalArgumentException If the given author is null.
+   * @since 0.1.0
+   */
+  public Structure copy(String author) throws IllegalArgumentException {
+    return copy(author, 0);
+  }
+
+  /**
+   * Copies this structure to a new structure with the given author and version number. The same version number
+   * as this structure <i>may</i> be used.
+   *
+   * @param author  The new author.
+   * @param version The new version.
+   *
+   * @return The newly copied structure.
+   * @throws IllegalArgumentException If the given author is null.
+   * @since 0.1.0
+   */
+  public Structure copy(String author, int version) throws IllegalArgumentException {
+    return new Structure(data.copy(author, version > 0 ? version : this.version + 1), resolvedPalettes);
+  }
+
+  /**
+   * Saves the structure to disk at the given file. The file should end with the <code>.nbt</code> extension,
+   * but this will not be enforced.
+   *
+   * @param file The file to save to.
+   *
+   * @throws IOException              I/O write errors.
+   * @throws FileNotFoundException    If the file does not exist.
+   * @throws IllegalArgumentException if the file is null.
+   */
+  public void save(File file) throws IOException, IllegalArgumentException {
+    save(file, StructureFormat.NBT);
+  }
+
+  /**
+   * Saves the structure to disk at the given file in the given format. Structures can be converted between formats
+   * without losing any information by loading and saving them again.
+   *
+   * @param file   The file to save to.
+   * @param format The format to save in.
+   *
+   * @throws IOException              I/O write errors.
+   * @throws FileNotFoundException    If the file does not exist.
+   * @throws IllegalArgumentException if the file or format is null.
+   * @since 0.1.0
+   */
+  public void save(File file, StructureFormat format) throws IOException, IllegalArgumentException {
+    Validate.notNull(format);
+    save(file, format, CompressionCodec.GZIP);
+  }
+
+  /**
+   * Saves the structure to disk at the given file in the {@link StructureFormat#NBT} format, compressed with the given
+   * codec. Files saved with any codec are detected when loaded, but only {@link CompressionCodec#GZIP} files can be
+   * loaded by vanilla structure blocks.
+   *
+   * @param file  The file to save to.
+   * @param codec The codec to compress with.
+   *
+   * @throws IOException              I/O write errors.
+   * @throws FileNotFoundException    If the file does not exist.
+   * @throws IllegalArgumentException if the file or codec is null.
+   * @since 0.1.0
+   */
+  public void save(File file, CompressionCodec codec) throws IOException, IllegalArgumentException {
+    Validate.notNull(codec);
+    save(file, StructureFormat.NBT, codec);
+  }
+
+  /**
+   * Saves the structure to disk at the given file in the given format, compressing {@link StructureFormat#NBT} files
+   * with the given codec. {@link StructureFormat#VXS} files are never compressed, so the codec is ignored for them.
+   *
+   * @param file   The file to save to.
+   * @param format The format to save in.
+   * @param codec  The codec to compress with.
+   *
+   * @throws IOException              I/O write errors.
+   * @throws IllegalArgumentException if the file, format or codec is null.
+   * @see #save(File, StructureFormat)
+   * @since 0.1.0
+   */
+  public void save(File file, StructureFormat format, CompressionCodec codec) throws IOException,
+      IllegalArgumentException {
+    Validate.notNull(format);
+    Validate.notNull(codec);
+    savedData().write(file, format, codec);
+  }
+
+  /**
+   * Saves the structure to the given output stream.
+   *
+   * @param out The output stream to save to.
+   *
+   * @throws IOException              I/O write errors.
+   * @throws IllegalArgumentException If the stream is null.
+   */
+  public void save(OutputStream out) throws IOException, IllegalArgumentException {
+    save(out, CompressionCodec.GZIP);
+  }
+
+  /**
+   * Saves the structure to the given output stream, compressed with the given codec.
+   *
+   * @param out   The output stream to save to.
+   * @param codec The codec to compress with.
+   *
+   * @throws IOException              I/O write errors.
+   * @throws IllegalArgumentException If the stream or codec is null.
+   * @see #save(File, CompressionCodec)
+   * @since 0.1.0
+   */
+  public void save(OutputStream out, CompressionCodec codec) throws IOException, IllegalArgumentException {
+    savedData().write(out, codec);
+  }
+
+  /**
+   * Returns a new structure that has been rotated over the given {@link Rotation}.
+   * <p>
+   * The returned structure is a view of this one: no blocks are copied, and the rotation is applied with integer
+   * arithmetic as blocks are read or pasted. Rotating a rotated structure combines both rotations into one view.
+   * Block states such as facing are turned to match, once per palette entry rather than once per block.
+   *
+   * @param rotation The rotation to rotate over.
+   *
+   * @return The rotated structure.
+   * @since 0.1.0
+   */
+  public Structure rotated(Rotation rotation) {
+    Validate.notNull(rotation);
+    return transformed(Orientation.rotation(rotation.deg() / 90));
+  }
+
+  /**
+   * Returns a new structure that has been mirrored over the given {@link Mirror}.
+   * <p>
+   * Like {@link #rotated(Rotation)}, the returned structure is a view of this one and mirroring costs nothing until
+   * it is read from or pasted.
+   *
+   * @param mirror The mirror to mirror over.
+   *
+   * @return The new structure.
+   */
+  public Structure mirrored(Mirror mirror) {
+    Validate.notNull(mirror);
+    switch (mirror) {
+      case LEFT_RIGHT:
+        return transformed(Orientation.MIRROR_X);
+      case FRONT_BACK:
+        return transformed(Orientation.MIRROR_Z);
+      default:
+        return transformed(Orientation.IDENTITY);
+    }
+  }
+
+  private Structure transformed(Orientation orientation) {
+    return new Structure(data.transformed(orientation), resolvedPalettes);
+  }
+
+  /**
+   * Gets an {@link Optional} containing an {@link ItemStack} of size 1 that holds the material
+   * and damage value of the block at the given x, y, and z positions. If no block is present
+   * at the location or the given location is out of bounds, an empty optional is returned.
+   *
+   * @param x The X position.
+   * @param y The Y position.
+   * @param z The Z position.
+   *
+   * @return The optional.
+   * @see #getAt(Vector)
+   * @since 0.1.0
+   */
+  public Optional<ItemStack> getAt(double x, double y, double z) {
+    return getAt(new Vector(x, y, z));
+  }
+
+  /**
+   * Gets an {@link Optional} containing an {@link ItemStack} of size 1 that holds the material
+   * and damage value of the block at the given position. If no block is present
+   * at the location or the given location is out of bounds, an empty optional is returned.
+   *
+   * @param vector The position.
+   *
+   * @return The optional.
+   * @see #getAt(double, double, double)
+   * @since 0.1.0
+   */
+  public Optional<ItemStack> getAt(Vector vector) {
+    int x = vector.getBlockX(), y = vector.getBlockY(), z = vector.getBlockZ();
+    if (!data.blocks.contains(x, y, z)) return Optional.empty();
+    IBlockData data = getDataAt(x, y, z);
+    if (data == null) return Optional.empty();
+
+    Block block = data.getBlock();
+
+    return Optional.of(CraftItemStack.asBukkitCopy(new net.minecraft.server.v1_10_R1.ItemStack(
+        block, 1, block.toLegacyData(data))));
+  }
+
+  /**
+   * Loads a given block within the structure to the given location plus the block's relative
+   * offset.
+   *
+   * @param location The location to load the structure to.
+   * @param pos      The relative offset of the block within the structure.
+   *
+   * @throws IndexOutOfBoundsException If the given offset is greater than {@link #size}
+   *                                   on any axis.
+   */
+  @SuppressWarnings("deprecation")
+  public void loadTo(Location location, Vector pos) throws IndexOutOfBoundsException {
+    loadTo(location, pos.getBlockX(), pos.getBlockY(), pos.getBlockZ());
+  }
+
+  @SuppressWarnings("deprecation")
+  private void loadTo(Location location, int x, int y, int z) throws IndexOutOfBoundsException {
+    IBlockData data = getDataAt(x, y, z);
+    if (data == null) return;
+
+    WorldServer world = ((CraftWorld) location.getWorld()).getHandle();
+
+    BlockPosition blockPos = new BlockPosition(location.getBlockX() + x, location.getBlockY() + y,
+        location.getBlockZ() + z);
+
+    Chunk chunk = world.getChunkAt(blockPos.getX() >> 4, blockPos.getZ() >> 4);
+    chunk.a(blockPos, data);
+    location.getWorld().refreshChunk(chunk.locX, chunk.locZ);
+  }
+
+  /**
+   * Loads the entire structure to the given location.
+   * <p>
+   * Blocks are written chunk by chunk, and each affected chunk is refreshed once after all of its blocks have been
+   * written. Blocks that would fall outside of the world's height are skipped.
+   * <p>
+   * <b>Note:</b> The given location should be a minimum for all axises and
+   * all rotations should be applied beforehand.
+   *
+   * @param location The location to load the structure to.
+   *
+   * @return The number of chunks and blocks that were written.
+   * @throws IllegalArgumentException If the location is null.
+   * @see #loadTo(Location, PasteMode)
+   */
+  public PasteResult loadTo(Location location) throws IllegalArgumentException {
+    return loadTo(location, PasteMode.REPLACE);
+  }
+
+  /**
+   * Loads the entire structure to the given location like {@link #loadTo(Location)}, writing blocks in the given
+   * mode. With {@link PasteMode#DIFF}, blocks that already match the world are skipped and only chunks in which
+   * something changed are refreshed.
+   *
+   * @param location The location to load the structure to.
+   * @param mode     How blocks are written.
+   *
+   * @return The number of chunks refreshed and blocks written and skipped.
+   * @throws IllegalArgumentException If the location or mode is null.
+   * @since 0.1.0
+   */
+  public PasteResult loadTo(Location location, PasteMode mode) throws IllegalArgumentException {
+    return loadTo(location, mode, null);
+  }
+
+  /**
+   * Loads the entire structure to the given location like {@link #loadTo(Location, PasteMode)}, recording the
+   * previous state of every block that changes in the given journal so that the paste can be undone.
+   *
+   * @param location The location to load the structure to.
+   * @param mode     How blocks are written.
+   * @param journal  The journal to record replaced blocks in, or null to not record them.
+   *
+   * @return The number of chunks refreshed and blocks written and skipped.
+   * @throws IllegalArgumentException If the location or mode is null.
+   * @throws IllegalStateException    If the journal has already recorded a paste.
+   * @see UndoJournal#undo()
+   * @since 0.1.0
+   */
+  public PasteResult loadTo(Location location, PasteMode mode, UndoJournal journal)
+      throws IllegalArgumentException, IllegalStateException {
+    return loadTo(location, mode, journal, PasteOptions.DEFAULT);
+  }
+
+  /**
+   * Loads the entire structure to the given location like {@link #loadTo(Location, PasteMode, UndoJournal)}, treating
+   * the world around written blocks according to the given options.
+   *
+   * @param location The location to load the structure to.
+   * @param mode     How blocks are written.
+   * @param journal  The journal to record replaced blocks in, or null to not record them.
+   * @param options  How the world around written blocks is treated.
+   *
+   * @return The number of chunks refreshed and blocks written and skipped.
+   * @throws IllegalArgumentException If the location, mode or options are null.
+   * @throws IllegalStateException    If the journal has already recorded a paste.
+   * @see PasteOptions#deferredLighting(boolean)
+   * @since 0.1.0
+   */
+  public PasteResult loadTo(Location location, PasteMode mode, UndoJournal journal, PasteOptions options)
+      throws IllegalArgumentException, IllegalStateException {
+    Validate.notNull(location);
+    Validate.notNull(mode);
+    Validate.notNull(options);
+    return engine(location, mode, journal, options).run();
+  }
+
+  /**
+   * Loads the entire structure to the given location over as many server ticks as needed, spending at most
+   * <code>budget</code> milliseconds per tick writing blocks. Chunks are pasted in order and each is refreshed once
+   * it is complete. The budget is shared with every other paste in progress under the same plugin, so running several
+   * at once does not multiply the time spent per tick.
+   * <p>
+   * <b>Note:</b> The given location should be a minimum for all axises and
+   * all rotations should be applied beforehand.
+   *
+   * @param plugin   The plugin to schedule the paste under.
+   * @param location The location to load the structure to.
+   * @param budget   The per-tick time budget, in milliseconds.
+   *
+   * @return The scheduled paste job.
+   * @throws IllegalArgumentException If the plugin or location is null, or the budget is zero or less.
+   * @see #loadTo(Location)
+   * @since 0.1.0
+   */
+  public PasteJob loadTo(Plugin plugin, Location location, long budget) throws IllegalArgumentException {
+    return loadTo(plugin, location, budget, PasteMode.REPLACE);
+  }
+
+  /**
+   * Loads the entire structure to the given location over as many server ticks as needed, like
+   * {@link #loadTo(Plugin, Location, long)}, writing blocks in the given mode.
+   *
+   * @param plugin   The plugin to schedule the paste under.
+   * @param location The location to load the structure to.
+   * @param budget   The per-tick time budget, in milliseconds.
+   * @param mode     How blocks are written.
+   *
+   * @return The scheduled paste job.
+   * @throws IllegalArgumentException If the plugin, location or mode is null, or the budget is zero or less.
+   * @see #loadTo(Location, PasteMode)
+   * @since 0.1.0
+   */
+  public PasteJob loadTo(Plugin plugin, Location location, long budget, PasteMode mode)
+      throws IllegalArgumentException {
+    return loadTo(plugin, location, budget, mode, null);
+  }
+
+  /**
+   * Loads the entire structure to the given location over as many server ticks as needed, like
+   * {@link #loadTo(Plugin, Location, long, PasteMode)}, recording the previous state of every block that changes in
+   * the given journal so that the paste can be undone.
+   *
+   * @param plugin   The plugin to schedule the paste under.
+   * @param location The location to load the structure to.
+   * @param budget   The per-tick time budget, in milliseconds.
+   * @param mode     How blocks are written.
+   * @param journal  The journal to record replaced blocks in, or null to not record them.
+   *
+   * @return The scheduled paste job.
+   * @throws IllegalArgumentException If the plugin, location or mode is null, or the budget is zero or less.
+   * @throws IllegalStateException    If the journal has already recorded a paste.
+   * @see UndoJournal#undo(Plugin, long)
+   * @since 0.1.0
+   */
+  public PasteJob loadTo(Plugin plugin, Location location, long budget, PasteMode mode, UndoJournal journal)
+      throws IllegalArgumentException, IllegalStateException {
+    return loadTo(plugin, location, budget, mode, journal, PasteOptions.DEFAULT);
+  }
+
+  /**
+   * Loads the entire structure to the given location over as many server ticks as needed, like
+   * {@link #loadTo(Plugin, Location, long, PasteMode, UndoJournal)}, treating the world around written blocks
+   * according to the given options. Any work the options defer to the end of a chunk counts towards the tick budget.
+   *
+   * @param plugin   The plugin to schedule the paste under.
+   * @param location The location to load the structure to.
+   * @param budget   The per-tick time budget, in milliseconds.
+   * @param mode     How blocks are written.
+   * @param journal  The journal to record replaced blocks in, or null to not record them.
+   * @param options  How the world around written blocks is treated.
+   *
+   * @return The scheduled paste job.
+   * @throws IllegalArgumentException If the plugin, location, mode or options are null, or the budget is zero or
+   *                                  less.
+   * @throws IllegalStateException    If the journal has already recorded a paste.
+   * @see #loadTo(Location, PasteMode, UndoJournal, PasteOptions)
+   * @since 0.1.0
+   */
+  public PasteJob loadTo(Plugin plugin, Location location, long budget, PasteMode mode, UndoJournal journal,
+                         PasteOptions options) throws IllegalArgumentException, IllegalStateException {
+    Validate.notNull(plugin);
+    Validate.notNull(location);
+    Validate.notNull(mode);
+    Validate.notNull(options);
+    Validate.isTrue(budget > 0, "Tick budget must be positive");
+    return new PasteJob(engine(location, mode, journal, options), budget).start(plugin);
+  }
+
+  private PasteEngine<IBlockData> engine(Location location, PasteMode mode, UndoJournal journal,
+                                         PasteOptions options) throws IllegalStateException {
+    if (journal != null) journal.begin(location, data.blocks, options);
+    int x = location.getBlockX(), y = location.getBlockY(), z = location.getBlockZ();
+    return new PasteEngine<>(data.blocks, resolvedPalette(),
+        new WorldPasteTarget(location.getWorld(), journal, x, y, z, data.blocks, options), x, y, z, mode);
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+        .add("author", author)
+        .add("version", version)
+        .add("size", size)
+        .toString();
+  }
+
+  @Override
+  public Structure clone() {
+    try {
+      return (Structure) super.clone();
+    } catch (CloneNotSupportedException e) {
+      return copy(author, version);
+    }
+  }
+
+}
@@ -0,0 +1,225 @@
+package io.vevox.vx.structures;
+
+import com.google.common.base.Objects;
+import org.apache.commons.lang3.Validate;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe cache of structures loaded from files, bounded by an estimate of the heap they retain.
+ * <p>
+ * Structures are keyed by the absolute path of their file and remembered along with the file's modification time, so
+ * a file that changes on disk is loaded again rather than served stale. Cached structures are held strongly in least
+ * recently used order until their combined {@link Structure#estimatedBytes() estimated size} exceeds the budget, at
+ * which point the least recently used ones are demoted to soft references. A demoted structure that the garbage
+ * collector has not yet reclaimed is promoted back on its next lookup without being loaded again.
+ * <p>
+ * Structures are never modified once loaded, so the same instance is handed to every caller. Loading happens outside
+ * of the cache's lock, so a slow load never blocks lookups of other files.
+ *
+ * @author Matthew Struble
+ * @see vxStructures#getStructureCache()
+ * @since 0.1.0
+ */
+public final class StructureCache {
+
+  private final long budget;
+
+  // Strongly held entries, least recently used first.
+  private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75F, true);
+  private final Map<Path, SoftEntry> demoted = new HashMap<>();
+  private final ReferenceQueue<Entry> cleared = new ReferenceQueue<>();
+  private long bytes;
+
+  private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), evictions = new AtomicLong();
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param budget The number of estimated bytes of structures to hold strongly.
+   *
+   * @throws IllegalArgumentException If the budget is negative.
+   */
+  public StructureCache(long budget) throws IllegalArgumentException {
+    Validate.isTrue(budget >= 0, "Cache budget must not be negative");
+    this.budget = budget;
+  }
+
+  /**
+   * Gets the structure in the given file, loading it with {@link Structure#Structure(File)} if it is not cached or has
+   * been modified since it was cached.
+   *
+   * @param file The file to load from.
+   *
+   * @return The structure.
+   * @throws java.io.FileNotFoundException If the file could not be found.
+   * @throws IOException                   General I/O read errors.
+   * @throws IllegalArgumentException      If the file is null.
+   */
+  public Structure get(File file) throws IOException, IllegalArgumentException {
+    Validate.notNull(file);
+    Path path = file.toPath().toAbsolutePath().normalize();
+    long modified = Files.getLastModifiedTime(path).toMillis();
+
+    synchronized (this) {
+      purge();
+      Entry entry = entries.get(path);
+      if (entry == null) {
+        SoftEntry soft = demoted.remove(path);
+        if (soft != null && (entry = soft.get()) != null && entry.modified == modified) put(path, entry);
+      }
+      if (entry != null && entry.modified == modified) {
+        hits.incrementAndGet();
+        Metrics.CACHE_HITS.increment();
+        return entry.structure;
+      }
+    }
+
+    misses.incrementAndGet();
+    Metrics.CACHE_MISSES.increment();
+    Structure structure = new Structure(file);
+    Entry entry = new Entry(structure, modified, structure.estimatedBytes());
+    synchronized (this) {
+      Entry current = entries.get(path);
+      // Another thread may have loaded the same file in the meantime.
+      if (current != null && current.modified == modified) return current.structure;
+      put(path, entry);
+    }
+    return structure;
+  }
+
+  private void put(Path path, Entry entry) {
+    Entry previous = entries.put(path, entry);
+    if (previous != null) bytes -= previous.bytes;
+    bytes += entry.bytes;
+
+    Iterator<Map.Entry<Path, Entry>> eldest = entries.entrySet().iterator();
+    while (bytes > budget && eldest.hasNext()) {
+      Map.Entry<Path, Entry> evicted = eldest.next();
+      eldest.remove();
+      bytes -= evicted.getValue().bytes;
+      demoted.put(evicted.getKey(), new SoftEntry(evicted.getKey(), evicted.getValue(), cleared));
+      evictions.incrementAndGet();
+    }
+  }
+
+  // Forgets demoted entries whose structures have been collected.
+  private void purge() {
+    SoftEntry soft;
+    while ((soft = (SoftEntry) cleared.poll()) != null)
+      if (demoted.get(soft.path) == soft) demoted.remove(soft.path);
+  }
+
+  /**
+   * Removes the structure in the given file from this cache, if it is cached.
+   *
+   * @param file The file.
+   *
+   * @throws IllegalArgumentException If the file is null.
+   */
+  public synchronized void invalidate(File file) throws IllegalArgumentException {
+    Validate.notNull(file);
+    Path path = file.toPath().toAbsolutePath().normalize();
+    Entry entry = entries.remove(path);
+    if (entry != null) bytes -= entry.bytes;
+    demoted.remove(path);
+  }
+
+  /**
+   * Removes every structure from this cache. The hit, miss and eviction counts are kept.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    demoted.clear();
+    bytes = 0;
+  }
+
+  /**
+   * @return The number of structures held strongly by this cache.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return The combined estimated size in bytes of the structures held strongly by this cache.
+   */
+  public synchronized long getEstimatedBytes() {
+    return bytes;
+  }
+
+  /**
+   * @return The number of estimated bytes of structures this cache holds strongly before demoting them.
+   */
+  public long getBudget() {
+    return budget;
+  }
+
+  /**
+   * @return The number of lookups that were served from this cache.
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * @return The number of lookups that had to load their structure.
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * @return The number of structures that have been demoted to soft references to stay within the budget.
+   */
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+        .add("size", size())
+        .add("bytes", getEstimatedBytes())
+        .add("budget", budget)
+        .add("hits", getHits())
+        .add("misses", getMisses())
+        .add("evictions", getEvictions())
+        .toString();
+  }
+
+  private static final class Entry {
+
+    final Structure structure;
+    final long modified, bytes;
+
+    Entry(Structure structure, long modified, long bytes) {
+      this.structure = structure;
+      this.modified = modified;
+      this.bytes = bytes;
+    }
+
+  }
+
+  private static final class SoftEntry extends SoftReference<Entry> {
+
+    final Path path;
+
+    SoftEntry(Path path, Entry entry, ReferenceQueue<Entry> queue) {
+      super(entry, queue);
+      this.path = path;
+    }
+
+  }
+
+}
@@ -0,0 +1,326 @@
+package io.vevox.vx.structures;
+
+import org.apache.commons.lang3.Validate;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads and saves structures on a fixed pool of worker threads, so that file I/O never blocks the server thread.
+ * <p>
+ * Every operation returns a {@link CompletableFuture}. Futures complete on a worker thread; to continue on the server
+ * thread instead, chain onto them with {@link #mainThread()} as the executor, or wrap them with
+ * {@link #onMainThread(CompletableFuture)}.
+ * <p>
+ * Saves capture the structure as it is when they are submitted, and saves to the same file are written one after
+ * another in the order they were submitted, so the last one submitted is the one left on disk. Saves that do not name
+ * a codec compress with the service's default codec.
+ *
+ * @author Matthew Struble
+ * @see vxStructures#getStructureIO()
+ * @since 0.1.0
+ */
+public final class StructureIO {
+
+  /**
+   * The longest {@link #shutdown()} waits for submitted work to finish, in seconds.
+   */
+  public static final long SHUTDOWN_TIMEOUT = 30;
+
+  private final Plugin plugin;
+  private final StructureCache cache;
+  private final CompressionCodec codec;
+  private final ExecutorService workers;
+  private final Executor mainThread;
+
+  // The last save submitted for each file, which the next save to that file waits for.
+  private final Map<Path, CompletableFuture<Void>> saves = new HashMap<>();
+
+  /**
+   * Creates a service with the given number of worker threads.
+   *
+   * @param plugin  The plugin that owns the service, used to schedule work back onto the server thread.
+   * @param threads The number of worker threads.
+   * @param cache   The cache to load structures through, or null to always load them from disk.
+   *
+   * @throws IllegalArgumentException If the plugin is null, or the number of threads is zero or less.
+   */
+  public StructureIO(Plugin plugin, int threads, StructureCache cache) throws IllegalArgumentException {
+    this(plugin, threads, cache, CompressionCodec.GZIP);
+  }
+
+  /**
+   * Creates a service with the given number of worker threads, which saves with the given codec unless told otherwise.
+   *
+   * @param plugin  The plugin that owns the service, used to schedule work back onto the server thread.
+   * @param threads The number of worker threads.
+   * @param cache   The cache to load structures through, or null to always load them from disk.
+   * @param codec   The codec to compress saved structures with by default.
+   *
+   * @throws IllegalArgumentException If the plugin or codec is null, or the number of threads is zero or less.
+   * @since 0.1.0
+   */
+  public StructureIO(Plugin plugin, int threads, StructureCache cache, CompressionCodec codec)
+      throws IllegalArgumentException {
+    Validate.notNull(plugin);
+    Validate.notNull(codec);
+    Validate.isTrue(threads > 0, "Thread count must be positive");
+    this.plugin = plugin;
+    this.cache = cache;
+    this.codec = codec;
+    workers = Executors.newFixedThreadPool(threads, new WorkerFactory());
+    mainThread = task -> {
+      if (plugin.getServer().isPrimaryThread()) task.run();
+      else plugin.getServer().getScheduler().runTask(plugin, task);
+    };
+  }
+
+  /**
+   * Gets an executor that runs tasks on the server thread: immediately if called from it, or on the next tick
+   * otherwise.
+   *
+   * @return The executor.
+   */
+  public Executor mainThread() {
+    return mainThread;
+  }
+
+  /**
+   * Gets a future that completes on the server thread with the outcome of the given future.
+   *
+   * @param future The future to follow.
+   * @param <T>    The type of the result.
+   *
+   * @return The new future.
+   * @throws IllegalArgumentException If the future is null.
+   */
+  public <T> CompletableFuture<T> onMainThread(CompletableFuture<T> future) throws IllegalArgumentException {
+    Validate.notNull(future);
+    CompletableFuture<T> result = new CompletableFuture<>();
+    future.whenCompleteAsync((value, error) -> {
+      if (error != null) result.completeExceptionally(error);
+      else result.complete(value);
+    }, mainThread);
+    return result;
+  }
+
+  /**
+   * Loads the structure in the given file on a worker thread.
+   *
+   * @param file The file to load from.
+   *
+   * @return A future that completes with the structure, or with the {@link IOException} that stopped it loading.
+   * @throws IllegalArgumentException If the file is null.
+   * @see Structure#Structure(File)
+   */
+  public CompletableFuture<Structure> loadAsync(File file) throws IllegalArgumentException {
+    Validate.notNull(file);
+    return submit(() -> cache != null ? cache.get(file) : new Structure(file));
+  }
+
+  /**
+   * Loads every <code>.nbt</code> and <code>.vxs</code> file in the given directory, spread over the worker threads.
+   * Subdirectories are not searched.
+   *
+   * @param dir The directory to load from.
+   *
+   * @return A future that completes with the loaded structures keyed by file, in directory order, or exceptionally if
+   * the directory or any of its structures could not be read.
+   * @throws IllegalArgumentException If the directory is null.
+   */
+  public CompletableFuture<Map<File, Structure>> loadAll(Path dir) throws IllegalArgumentException {
+    Validate.notNull(dir);
+    return this.<List<File>>submit(() -> {
+      List<File> files = new ArrayList<>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.{nbt,vxs}")) {
+        for (Path path : stream)
+          if (Files.isRegularFile(path)) files.add(path.toFile());
+      }
+      return files;
+    }).thenCompose(files -> {
+      List<CompletableFuture<Structure>> loads = new ArrayList<>(files.size());
+      for (File file : files)
+        loads.add(loadAsync(file));
+
+      return CompletableFuture.allOf(loads.toArray(new CompletableFuture[loads.size()])).thenApply(done -> {
+        Map<File, Structure> structures = new LinkedHashMap<>();
+        for (int i = 0; i < files.size(); i++)
+          structures.put(files.get(i), loads.get(i).join());
+        return structures;
+      });
+    });
+  }
+
+  /**
+   * Saves the given structure to the given file in the {@link StructureFormat#NBT} format, compressed with the default
+   * codec, on a worker thread.
+   *
+   * @param structure The structure to save.
+   * @param file      The file to save to.
+   *
+   * @return A future that completes once the file has been written, or with the {@link IOException} that stopped it.
+   * @throws IllegalArgumentException If the structure or file is null.
+   * @see Structure#save(File, CompressionCodec)
+   */
+  public CompletableFuture<Void> saveAsync(Structure structure, File file) throws IllegalArgumentException {
+    return saveAsync(structure, file, codec);
+  }
+
+  /**
+   * Saves the given structure to the given file in the given format on a worker thread. {@link StructureFormat#NBT}
+   * files are compressed with the default codec.
+   *
+   * @param structure The structure to save.
+   * @param file      The file to save to.
+   * @param format    The format to save in.
+   *
+   * @return A future that completes once the file has been written, or with the {@link IOException} that stopped it.
+   * @throws IllegalArgumentException If the structure, file or format is null.
+   * @see Structure#save(File, StructureFormat)
+   */
+  public CompletableFuture<Void> saveAsync(Structure structure, File file, StructureFormat format)
+      throws IllegalArgumentException {
+    Validate.notNull(format);
+    return save(structure, file, saved -> saved.save(file, format, codec));
+  }
+
+  /**
+   * Saves the given structure to the given file in the {@link StructureFormat#NBT} format, compressed with the given
+   * codec, on a worker thread.
+   *
+   * @param structure The structure to save.
+   * @param file      The file to save to.
+   * @param codec     The codec to compress with.
+   *
+   * @return A future that completes once the file has been written, or with the {@link IOException} that stopped it.
+   * @throws IllegalArgumentException If the structure, file or codec is null.
+   * @see Structure#save(File, CompressionCodec)
+   */
+  public CompletableFuture<Void> saveAsync(Structure structure, File file, CompressionCodec codec)
+      throws IllegalArgumentException {
+    Validate.notNull(codec);
+    return save(structure, file, saved -> saved.save(file, codec));
+  }
+
+  private CompletableFuture<Void> save(Structure structure, File file, SaveTask task) {
+    Validate.notNull(structure);
+    Validate.notNull(file);
+    Path path = file.toPath().toAbsolutePath().normalize();
+
+    synchronized (saves) {
+      CompletableFuture<Void> previous = saves.get(path);
+      CompletableFuture<Void> save = new CompletableFuture<>();
+      Runnable write = () -> run(save, () -> {
+        // Structures are never modified once they exist, so the structure is its own snapshot. Copying it would
+        // also bump a version of zero or less.
+        task.save(structure);
+        if (cache != null) cache.invalidate(file);
+        return null;
+      });
+      if (previous == null) workers.execute(write);
+      else previous.whenCompleteAsync((done, error) -> write.run(), workers);
+      saves.put(path, save);
+      save.whenComplete((done, error) -> {
+        synchronized (saves) {
+          saves.remove(path, save);
+        }
+      });
+      return save;
+    }
+  }
+
+  private <T> CompletableFuture<T> submit(IOTask<T> task) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    workers.execute(() -> run(future, task));
+    return future;
+  }
+
+  private static <T> void run(CompletableFuture<T> future, IOTask<T> task) {
+    try {
+      future.complete(task.call());
+    } catch (IOException | RuntimeException e) {
+      future.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * Stops accepting new work and waits up to {@link #SHUTDOWN_TIMEOUT} seconds for work that has already been
+   * submitted to finish, including saves still queued behind earlier saves to the same file. Anything that has not
+   * finished by then is logged, and abandoned once the server exits.
+   */
+  public void shutdown() {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT);
+    List<CompletableFuture<Void>> pending;
+    synchronized (saves) {
+      pending = new ArrayList<>(saves.values());
+    }
+
+    try {
+      // Queued saves are only handed to the pool once the save before them completes, so the pool cannot be shut
+      // down until the last save of every file has started.
+      CompletableFuture.allOf(pending.toArray(new CompletableFuture[pending.size()]))
+          .get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    } catch (ExecutionException e) {
+      // Failed saves have already been reported through their own futures.
+    } catch (TimeoutException | InterruptedException e) {
+      if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+    }
+
+    workers.shutdown();
+    try {
+      if (workers.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) return;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    int saving;
+    synchronized (saves) {
+      saving = saves.size();
+    }
+    plugin.getLogger().warning("Structure I/O did not finish within " + SHUTDOWN_TIMEOUT + " seconds, "
+        + saving + " file(s) may not have been saved");
+  }
+
+  private interface IOTask<T> {
+
+    T call() throws IOException;
+
+  }
+
+  private interface SaveTask {
+
+    void save(Structure structure) throws IOException;
+
+  }
+
+  private final class WorkerFactory implements ThreadFactory {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable task) {
+      Thread thread = new Thread(task, plugin.getName() + " I/O #" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+
+  }
+
+}
@@ -0,0 +1,261 @@
+package io.vevox.vx.structures;
+
+import net.minecraft.server.v1_10_R1.IBlockData;
+import org.apache.commons.lang3.Validate;
+import org.bukkit.Location;
+import org.bukkit.plugin.Plugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A record of the blocks a paste replaced, which can be pasted back to undo it.
+ * <p>
+ * The journal is filled in by the paste itself as it writes, rather than by capturing the whole region beforehand:
+ * only cells whose block actually changed are recorded, each as a single long holding its cell index within the paste
+ * and the index of its previous state in a palette local to the journal. Once more than a set number of cells have
+ * been recorded, they are appended to a temporary file instead of being kept in memory, so even very large pastes can
+ * be journaled.
+ * <p>
+ * Undoing turns the journal into a sparse structure holding only the recorded cells and pastes it through the same
+ * chunk-by-chunk engine as any other paste, with the same {@link PasteOptions} as the paste it undoes. Block entity
+ * data, such as chest contents, is not recorded.
+ *
+ * @author Matthew Struble
+ * @see Structure#loadTo(Location, PasteMode, UndoJournal)
+ * @since 0.1.0
+ */
+public final class UndoJournal implements Closeable {
+
+  /**
+   * The default number of cells kept in memory before the journal spills to disk.
+   */
+  public static final int DEFAULT_SPILL_THRESHOLD = 1 << 20;
+
+  private final int spillThreshold;
+
+  private Location origin;
+  private int sizeX, sizeY, sizeZ;
+  private PasteOptions options;
+
+  private final List<IBlockData> states = new ArrayList<>();
+  private final Map<IBlockData, Integer> stateIndices = new IdentityHashMap<>();
+
+  // Recorded cells as cell index << 32 | state index, in the order they were written.
+  private long[] entries;
+  private int length;
+  private long spilled;
+
+  private File spillFile;
+  private DataOutputStream spillOut;
+
+  /**
+   * Creates an empty journal that spills to disk after {@link #DEFAULT_SPILL_THRESHOLD} cells.
+   */
+  public UndoJournal() {
+    this(DEFAULT_SPILL_THRESHOLD);
+  }
+
+  /**
+   * Creates an empty journal that spills to disk after the given number of cells.
+   *
+   * @param spillThreshold The number of cells to keep in memory.
+   *
+   * @throws IllegalArgumentException If the threshold is zero or less.
+   */
+  public UndoJournal(int spillThreshold) throws IllegalArgumentException {
+    Validate.isTrue(spillThreshold > 0, "Spill threshold must be positive");
+    this.spillThreshold = spillThreshold;
+    entries = new long[Math.min(256, spillThreshold)];
+  }
+
+  /**
+   * Binds this journal to a paste. Called by the paste engine before anything is written.
+   *
+   * @param origin  The minimum corner of the paste.
+   * @param blocks  The storage being pasted.
+   * @param options The options of the paste, which undoing it is pasted with too.
+   *
+   * @throws IllegalStateException If this journal has already recorded a paste.
+   */
+  void begin(Location origin, BlockStorage blocks, PasteOptions options) throws IllegalStateException {
+    Validate.validState(this.origin == null, "Journal has already recorded a paste");
+    this.origin = origin.clone();
+    sizeX = blocks.sizeX;
+    sizeY = blocks.sizeY;
+    sizeZ = blocks.sizeZ;
+    this.options = options;
+  }
+
+  /**
+   * Records the state a cell held before it was written.
+   *
+   * @param x        The X position, relative to the paste origin.
+   * @param y        The Y position, relative to the paste origin.
+   * @param z        The Z position, relative to the paste origin.
+   * @param previous The state the cell held.
+   *
+   * @throws UncheckedIOException If the journal needs to spill to disk and fails to.
+   */
+  void record(int x, int y, int z, IBlockData previous) throws UncheckedIOException {
+    Integer state = stateIndices.get(previous);
+    if (state == null) {
+      state = states.size();
+      states.add(previous);
+      stateIndices.put(previous, state);
+    }
+
+    if (length == entries.length) {
+      if (length < spillThreshold) entries = Arrays.copyOf(entries, Math.min(length * 2, spillThreshold));
+      else spill();
+    }
+    entries[length++] = (long) ((y * sizeZ + z) * sizeX + x) << 32 | state;
+  }
+
+  private void spill() throws UncheckedIOException {
+    try {
+      if (spillOut == null) {
+        spillFile = File.createTempFile("vxs-undo", ".journal");
+        spillFile.deleteOnExit();
+        spillOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile)));
+      }
+      for (int i = 0; i < length; i++)
+        spillOut.writeLong(entries[i]);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not spill undo journal to disk", e);
+    }
+    spilled += length;
+    length = 0;
+  }
+
+  /**
+   * Ends recording, writing out anything spilled to disk that is still buffered. Called by the paste engine once the
+   * paste has finished, or has been abandoned part-way through.
+   *
+   * @throws UncheckedIOException If the spilled part of the journal could not be written.
+   */
+  void end() throws UncheckedIOException {
+    if (spillOut == null) return;
+    try {
+      spillOut.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not spill undo journal to disk", e);
+    }
+  }
+
+  /**
+   * @return The number of cells recorded by this journal.
+   */
+  public long size() {
+    return spilled + length;
+  }
+
+  /**
+   * @return True if part of this journal has been spilled to disk.
+   */
+  public boolean isSpilled() {
+    return spillFile != null;
+  }
+
+  /**
+   * Builds a structure holding the recorded states at their recorded positions, with every other cell empty.
+   *
+   * @return The structure, to be pasted at the origin of the journaled paste.
+   * @throws IOException           If the spilled part of the journal cannot be read back.
+   * @throws IllegalStateException If this journal has not recorded a paste.
+   */
+  Structure toStructure() throws IOException, IllegalStateException {
+    return new Structure("", 1, replay(), states);
+  }
+
+  /**
+   * Places the recorded palette indices at their recorded positions, in the order they were recorded.
+   *
+   * @return The storage, with every cell that was not recorded empty.
+   * @throws IOException           If the spilled part of the journal cannot be read back.
+   * @throws IllegalStateException If this journal has not recorded a paste.
+   */
+  BlockStorage replay() throws IOException, IllegalStateException {
+    Validate.validState(origin != null, "Journal has not recorded a paste");
+    Validate.validState(spillFile == null || spillOut != null, "Journal has been closed");
+
+    SparseBlockStorage blocks = new SparseBlockStorage(sizeX, sizeY, sizeZ, BlockStorage.EMPTY);
+    if (spillOut != null) {
+      spillOut.flush();
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(spillFile)))) {
+        for (long i = 0; i < spilled; i++)
+          place(blocks, in.readLong());
+      } catch (EOFException e) {
+        throw new IOException("Undo journal is truncated", e);
+      }
+    }
+    for (int i = 0; i < length; i++)
+      place(blocks, entries[i]);
+    return blocks;
+  }
+
+  private void place(BlockStorage blocks, long entry) {
+    int index = (int) (entry >>> 32), row = index / sizeX;
+    blocks.set(index - row * sizeX, row / sizeZ, row % sizeZ, (int) entry);
+  }
+
+  /**
+   * Undoes the journaled paste immediately, writing back every recorded block.
+   *
+   * @return The number of chunks and blocks that were written back.
+   * @throws IOException           If the spilled part of the journal cannot be read back.
+   * @throws IllegalStateException If this journal has not recorded a paste.
+   */
+  public PasteResult undo() throws IOException, IllegalStateException {
+    return toStructure().loadTo(origin, PasteMode.REPLACE, null, options);
+  }
+
+  /**
+   * Undoes the journaled paste over as many server ticks as needed, spending at most <code>budget</code>
+   * milliseconds per tick.
+   *
+   * @param plugin The plugin to schedule the undo under.
+   * @param budget The per-tick time budget, in milliseconds.
+   *
+   * @return The scheduled paste job.
+   * @throws IOException              If the spilled part of the journal cannot be read back.
+   * @throws IllegalStateException    If this journal has not recorded a paste.
+   * @throws IllegalArgumentException If the plugin is null, or the budget is zero or less.
+   */
+  public PasteJob undo(Plugin plugin, long budget) throws IOException, IllegalStateException,
+      IllegalArgumentException {
+    return toStructure().loadTo(plugin, origin, budget, PasteMode.REPLACE, null, options);
+  }
+
+  /**
+   * Deletes the spill file of this journal, if it has one, after which the journal can no longer be undone.
+   *
+   * @throws IOException If the spill file could not be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    if (spillOut == null) return;
+    try {
+      spillOut.close();
+    } finally {
+      spillOut = null;
+      //noinspection ResultOfMethodCallIgnored
+      spillFile.delete();
+    }
+  }
+
+}
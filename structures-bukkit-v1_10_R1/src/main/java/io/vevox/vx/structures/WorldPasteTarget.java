@@ -0,0 +1,250 @@
+package io.vevox.vx.structures;
+
+import net.minecraft.server.v1_10_R1.Block;
+import net.minecraft.server.v1_10_R1.BlockPosition;
+import net.minecraft.server.v1_10_R1.Blocks;
+import net.minecraft.server.v1_10_R1.Chunk;
+import net.minecraft.server.v1_10_R1.ChunkSection;
+import net.minecraft.server.v1_10_R1.EnumSkyBlock;
+import net.minecraft.server.v1_10_R1.IBlockData;
+import net.minecraft.server.v1_10_R1.ITileEntity;
+import net.minecraft.server.v1_10_R1.TileEntity;
+import net.minecraft.server.v1_10_R1.WorldServer;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.craftbukkit.v1_10_R1.CraftWorld;
+import org.bukkit.craftbukkit.v1_10_R1.util.CraftMagicNumbers;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link PasteTarget} that writes straight into the chunks of a server world.
+ * <p>
+ * Blocks are set through the chunk rather than the world, and each chunk that changed is refreshed for any players
+ * that can see it once it is ended. If the paste has an {@link UndoJournal}, the previous state of every block that
+ * changes is recorded in it as the block is written.
+ * <p>
+ * With {@link PasteOptions#isLightingDeferred() deferred lighting}, blocks are written into the chunk sections
+ * directly, with the same block and tile entity handling as the chunk but without any light updates. The positions
+ * whose light may have changed are collected instead, and the chunk is relit in one batch when it is ended. With
+ * {@link PasteOptions#isPhysicsSuppressed() suppressed physics}, blocks also skip their placement and removal
+ * behaviour, and the positions to update are collected until the paste is finished.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+final class WorldPasteTarget implements PasteTarget<IBlockData> {
+
+  /**
+   * The most positions updated by each call to {@link #finish()}, so that the update pass is spread over the ticks
+   * of the paste like the blocks themselves.
+   */
+  static final int UPDATES_PER_STEP = 1024;
+
+  // The height of the lowest block each column of a chunk rains and snows onto, which is private to the chunk.
+  private static final Field PRECIPITATION_HEIGHTS;
+
+  static {
+    try {
+      PRECIPITATION_HEIGHTS = Chunk.class.getDeclaredField("f");
+      PRECIPITATION_HEIGHTS.setAccessible(true);
+    } catch (NoSuchFieldException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private final WorldServer world;
+  private final World bukkitWorld;
+  private final IBlockData air;
+
+  private final UndoJournal journal;
+  private final int originX, originY, originZ;
+  // Inclusive maximum corner of the paste, for finding blocks on its edges.
+  private final int maxX, maxY, maxZ;
+
+  private final boolean deferLighting, physics, skyLight;
+  private final List<BlockPosition> relight = new ArrayList<>();
+
+  private final Set<Block> updatedTypes = new HashSet<>();
+  private final List<BlockPosition> updates = new ArrayList<>();
+  // Whether the update pass has begun, and how many positions it has updated.
+  private boolean finishing;
+  private int updated;
+
+  private Chunk chunk;
+  private int[] precipitationHeights;
+
+  /**
+   * @param world   The world to paste into.
+   * @param journal The journal to record replaced blocks in, or null.
+   * @param originX The minimum X position of the paste, which journal positions are relative to.
+   * @param originY The minimum Y position of the paste.
+   * @param originZ The minimum Z position of the paste.
+   * @param blocks  The blocks being pasted.
+   * @param options How the world around written blocks is treated.
+   */
+  WorldPasteTarget(World world, UndoJournal journal, int originX, int originY, int originZ, BlockStorage blocks,
+                   PasteOptions options) {
+    this.world = ((CraftWorld) world).getHandle();
+    bukkitWorld = world;
+    air = Blocks.AIR.getBlockData();
+    this.journal = journal;
+    this.originX = originX;
+    this.originY = originY;
+    this.originZ = originZ;
+    maxX = originX + blocks.sizeX - 1;
+    maxY = originY + blocks.sizeY - 1;
+    maxZ = originZ + blocks.sizeZ - 1;
+    deferLighting = options.isLightingDeferred();
+    physics = !options.isPhysicsSuppressed();
+    skyLight = !this.world.worldProvider.m();
+    for (Material type : options.getUpdatedTypes()) updatedTypes.add(CraftMagicNumbers.getBlock(type));
+  }
+
+  @Override
+  public int maxHeight() {
+    return bukkitWorld.getMaxHeight();
+  }
+
+  @Override
+  public void beginChunk(int chunkX, int chunkZ) {
+    chunk = world.getChunkAt(chunkX, chunkZ);
+    if (deferLighting) {
+      try {
+        precipitationHeights = (int[]) PRECIPITATION_HEIGHTS.get(chunk);
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  @Override
+  public IBlockData get(int x, int y, int z) {
+    // Sections that have never held a block are null, and read as all air.
+    ChunkSection section = chunk.getSections()[y >> 4];
+    return section == null ? air : section.getType(x & 15, y & 15, z & 15);
+  }
+
+  @Override
+  public void set(int x, int y, int z, IBlockData state) {
+    // The chunk hands back the state it replaced, or null if nothing changed.
+    IBlockData previous = deferLighting ? setUnlit(x, y, z, state) : chunk.a(new BlockPosition(x, y, z), state);
+    if (journal != null && previous != null) journal.record(x - originX, y - originY, z - originZ, previous);
+  }
+
+  /**
+   * Writes a block like the chunk does, but without updating light, and without physics if they are suppressed.
+   * Positions whose light may have changed are queued for {@link #relight()}, and positions to update once the paste
+   * is in place for {@link #finish()}.
+   *
+   * @return The state that was replaced, or null if nothing changed.
+   */
+  private IBlockData setUnlit(int x, int y, int z, IBlockData state) {
+    ChunkSection[] sections = chunk.getSections();
+    ChunkSection section = sections[y >> 4];
+    IBlockData previous = section == null ? air : section.getType(x & 15, y & 15, z & 15);
+    if (previous == state) return null;
+    if (section == null) section = sections[y >> 4] = new ChunkSection(y >> 4 << 4, skyLight);
+
+    BlockPosition position = new BlockPosition(x, y, z);
+    Block block = state.getBlock(), previousBlock = previous.getBlock();
+    section.setType(x & 15, y & 15, z & 15, state);
+    // Like the chunk, forget the precipitation height of the column if the block may have moved it, so that it is
+    // found again the next time it is needed.
+    int column = (z & 15) << 4 | x & 15;
+    if (y >= precipitationHeights[column] - 1) precipitationHeights[column] = -999;
+    if (previousBlock != block) {
+      if (physics) previousBlock.remove(world, position, previous);
+      else if (previousBlock instanceof ITileEntity) world.s(position);
+    }
+    // A tile entity that survives the write, because its block was written over with another state of itself, still
+    // caches the state it was created with.
+    if (previousBlock instanceof ITileEntity) invalidate(chunk.a(position, Chunk.EnumTileEntityState.CHECK));
+
+    // Light only needs checking where blocks let through or give off a different amount of it. Blocks that became
+    // more opaque only matter if they were lit to begin with.
+    int opacity = state.c(), previousOpacity = previous.c();
+    if (state.d() != previous.d() || opacity < previousOpacity || opacity > previousOpacity && isLit(position))
+      relight.add(position);
+
+    if (physics) {
+      if (previousBlock != block) block.onPlace(world, position, state);
+    } else if (isEdge(x, y, z) || updatedTypes.contains(block)) updates.add(position);
+
+    if (block instanceof ITileEntity) {
+      TileEntity tileEntity = chunk.a(position, Chunk.EnumTileEntityState.CHECK);
+      if (tileEntity == null)
+        world.setTileEntity(position, tileEntity = ((ITileEntity) block).a(world, block.toLegacyData(state)));
+      invalidate(tileEntity);
+    }
+    return previous;
+  }
+
+  private static void invalidate(TileEntity tileEntity) {
+    if (tileEntity != null) tileEntity.invalidateBlockCache();
+  }
+
+  private boolean isEdge(int x, int y, int z) {
+    return x == originX || x == maxX || y == originY || y == maxY || z == originZ || z == maxZ;
+  }
+
+  private boolean isLit(BlockPosition position) {
+    return chunk.getBrightness(EnumSkyBlock.SKY, position) > 0 || chunk.getBrightness(EnumSkyBlock.BLOCK, position) > 0;
+  }
+
+  /**
+   * Relights the current chunk after blocks have been written with {@link #setUnlit(int, int, int, IBlockData)}.
+   */
+  private void relight() {
+    // Rebuilds the height map and sky light of every column at once, and marks the chunk as modified.
+    chunk.initLighting();
+    for (BlockPosition position : relight) world.w(position);
+    relight.clear();
+  }
+
+  @Override
+  public void endChunk(boolean changed) {
+    if (changed) {
+      if (deferLighting) relight();
+      bukkitWorld.refreshChunk(chunk.locX, chunk.locZ);
+    }
+    chunk = null;
+    precipitationHeights = null;
+  }
+
+  /**
+   * Makes the next part of the single update pass for pastes with suppressed physics, now that every block is in
+   * place, updating at most {@link #UPDATES_PER_STEP} positions. Positions are updated from the bottom up, so that
+   * blocks resting on others are only updated once what they rest on has been.
+   */
+  @Override
+  public boolean finish() {
+    if (!finishing) {
+      finishing = true;
+      if (journal != null) journal.end();
+      updates.sort(Comparator.comparingInt(BlockPosition::getY).thenComparingInt(BlockPosition::getX)
+          .thenComparingInt(BlockPosition::getZ));
+    }
+
+    int end = Math.min(updated + UPDATES_PER_STEP, updates.size());
+    for (; updated < end; updated++) {
+      BlockPosition position = updates.get(updated);
+      // Earlier updates may have changed the block since it was written.
+      IBlockData state = world.getType(position);
+      Block block = state.getBlock();
+      if (updatedTypes.contains(block)) block.onPlace(world, position, state);
+      if (isEdge(position.getX(), position.getY(), position.getZ())) world.applyPhysics(position, block);
+    }
+    if (updated < updates.size()) return true;
+
+    updates.clear();
+    updated = 0;
+    return false;
+  }
+
+}
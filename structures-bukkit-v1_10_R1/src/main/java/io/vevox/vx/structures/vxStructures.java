@@ -0,0 +1,189 @@
+package io.vevox.vx.structures;
+
+import org.apache.commons.lang3.Validate;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Main plugin class for vxStructures.
+ * @author Matthew Struble
+ */
+@SuppressWarnings("unused")
+public class vxStructures extends JavaPlugin {
+
+  private long pasteBudget;
+  private PasteOptions pasteOptions;
+  private StructureCache structureCache;
+  private StructureIO structureIO;
+  private CompressionCodec compression;
+
+  @Override
+  public void onEnable() {
+    saveDefaultConfig();
+    pasteBudget = Math.max(1L, getConfig().getLong("paste.tick-budget", 10L));
+    pasteOptions = PasteOptions.DEFAULT
+        .deferredLighting(getConfig().getBoolean("paste.deferred-lighting", false))
+        .suppressedPhysics(getConfig().getBoolean("paste.suppress-physics", false))
+        .updating(updatedTypes());
+    structureCache = new StructureCache(Math.max(0L, getConfig().getLong("cache.budget", 64L)) << 20);
+
+    try {
+      compression = CompressionCodec.forName(getConfig().getString("compression.codec", "gzip"),
+          getConfig().getInt("compression.level", -1));
+    } catch (IllegalArgumentException e) {
+      getLogger().warning("Invalid compression settings, using gzip: " + e.getMessage());
+      compression = CompressionCodec.GZIP;
+    }
+    structureIO = new StructureIO(this, Math.max(1, getConfig().getInt("io.threads", 2)), structureCache,
+        compression);
+
+    Metrics.setEnabled(getConfig().getBoolean("metrics.enabled", false));
+    getCommand("vxs").setExecutor(new StatsCommand(this));
+  }
+
+  private Material[] updatedTypes() {
+    List<Material> types = new ArrayList<>();
+    for (String name : getConfig().getStringList("paste.update-types")) {
+      Material type = Material.matchMaterial(name);
+      if (type != null && type.isBlock()) types.add(type);
+      else getLogger().warning("Ignoring unknown block type in paste.update-types: " + name);
+    }
+    return types.toArray(new Material[types.size()]);
+  }
+
+  @Override
+  public void onDisable() {
+    if (structureIO != null) structureIO.shutdown();
+    if (structureCache != null) structureCache.clear();
+  }
+
+  /**
+   * Gets the cache shared by every user of this plugin for structures loaded from files.
+   *
+   * @return The cache.
+   * @since 0.1.0
+   */
+  public StructureCache getStructureCache() {
+    return structureCache;
+  }
+
+  /**
+   * Gets the service for loading and saving structures off the server thread. Structures it loads go through the
+   * shared {@link #getStructureCache() cache}.
+   *
+   * @return The service.
+   * @since 0.1.0
+   */
+  public StructureIO getStructureIO() {
+    return structureIO;
+  }
+
+  /**
+   * Gets the configured codec for saving structures, used by {@link #save(Structure, File)} and by default by the
+   * {@link #getStructureIO() I/O service}. Structures saved with any codec can be loaded, so changing it only affects
+   * newly saved files.
+   *
+   * @return The codec.
+   * @see Structure#save(File, CompressionCodec)
+   * @since 0.1.0
+   */
+  public CompressionCodec getCompression() {
+    return compression;
+  }
+
+  /**
+   * Gets the structure in the given file through the shared {@link #getStructureCache() cache}, so that files that
+   * are loaded often are only decoded once for as long as they stay unchanged.
+   *
+   * @param file The file to load from.
+   *
+   * @return The structure.
+   * @throws java.io.FileNotFoundException If the file could not be found.
+   * @throws IOException                   General I/O read errors.
+   * @throws IllegalArgumentException      If the file is null.
+   * @see StructureCache#get(File)
+   * @since 0.1.0
+   */
+  public Structure load(File file) throws IOException, IllegalArgumentException {
+    return structureCache.get(file);
+  }
+
+  /**
+   * Saves the given structure to the given file in the {@link StructureFormat#NBT} format, compressed with the
+   * configured {@link #getCompression() codec}, and drops any copy of the file held by the shared cache.
+   *
+   * @param structure The structure to save.
+   * @param file      The file to save to.
+   *
+   * @throws IOException              I/O write errors.
+   * @throws IllegalArgumentException If the structure or file is null.
+   * @see Structure#save(File, CompressionCodec)
+   * @since 0.1.0
+   */
+  public void save(Structure structure, File file) throws IOException, IllegalArgumentException {
+    Validate.notNull(structure);
+    structure.save(file, compression);
+    structureCache.invalidate(file);
+  }
+
+  /**
+   * Gets the configured per-tick time budget for pastes, in milliseconds.
+   *
+   * @return The budget.
+   * @since 0.1.0
+   */
+  public long getPasteBudget() {
+    return pasteBudget;
+  }
+
+  /**
+   * Gets the configured options for pastes made through this plugin.
+   *
+   * @return The options.
+   * @since 0.1.0
+   */
+  public PasteOptions getPasteOptions() {
+    return pasteOptions;
+  }
+
+  /**
+   * Pastes the given structure to the given location over as many ticks as needed, using the configured
+   * per-tick time budget and options.
+   *
+   * @param structure The structure to paste.
+   * @param location  The location to paste the structure to.
+   *
+   * @return The scheduled paste job.
+   * @throws IllegalArgumentException If the structure or location is null.
+   * @see Structure#loadTo(org.bukkit.plugin.Plugin, Location, long)
+   * @since 0.1.0
+   */
+  public PasteJob paste(Structure structure, Location location) throws IllegalArgumentException {
+    return paste(structure, location, PasteMode.REPLACE);
+  }
+
+  /**
+   * Pastes the given structure to the given location in the given mode over as many ticks as needed, using the
+   * configured per-tick time budget and options.
+   *
+   * @param structure The structure to paste.
+   * @param location  The location to paste the structure to.
+   * @param mode      How blocks are written.
+   *
+   * @return The scheduled paste job.
+   * @throws IllegalArgumentException If the structure, location or mode is null.
+   * @see Structure#loadTo(org.bukkit.plugin.Plugin, Location, long, PasteMode, UndoJournal, PasteOptions)
+   * @since 0.1.0
+   */
+  public PasteJob paste(Structure structure, Location location, PasteMode mode) throws IllegalArgumentException {
+    Validate.notNull(structure);
+    return structure.loadTo(this, location, pasteBudget, mode, null, pasteOptions);
+  }
+
+}
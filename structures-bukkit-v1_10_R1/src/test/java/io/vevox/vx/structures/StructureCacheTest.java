@@ -0,0 +1,102 @@
+package io.vevox.vx.structures;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for how a {@link StructureCache} serves, reloads and evicts structures.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+public class StructureCacheTest {
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void servesCachedStructures() throws IOException {
+    File file = write("cached.nbt", 1);
+    StructureCache cache = new StructureCache(Long.MAX_VALUE);
+
+    Structure structure = cache.get(file);
+    assertSame(structure, cache.get(file));
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(1, cache.size());
+    assertEquals(structure.estimatedBytes(), cache.getEstimatedBytes());
+  }
+
+  @Test
+  public void reloadsModifiedFiles() throws IOException {
+    File file = write("modified.nbt", 1);
+    StructureCache cache = new StructureCache(Long.MAX_VALUE);
+    Structure structure = cache.get(file);
+
+    write("modified.nbt", 2);
+    // File times may be as coarse as a second, so the change is made unmistakable.
+    assertEquals(true, file.setLastModified(file.lastModified() + 2000));
+    Structure reloaded = cache.get(file);
+    assertNotSame(structure, reloaded);
+    assertEquals(2, reloaded.version);
+    assertEquals(2, cache.getMisses());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void demotesLeastRecentlyUsed() throws IOException {
+    File first = write("first.nbt", 1), second = write("second.nbt", 1), third = write("third.nbt", 1);
+    long bytes = new StructureCache(Long.MAX_VALUE).get(first).estimatedBytes();
+    StructureCache cache = new StructureCache(bytes * 2);
+
+    Structure firstStructure = cache.get(first);
+    cache.get(second);
+    cache.get(first);
+    cache.get(third);
+
+    // The second file was used least recently, so it is the one demoted.
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getEvictions());
+    assertEquals(bytes * 2, cache.getEstimatedBytes());
+    assertSame(firstStructure, cache.get(first));
+    assertEquals(3, cache.getMisses());
+  }
+
+  @Test
+  public void invalidatesFiles() throws IOException {
+    File file = write("invalidated.nbt", 1);
+    StructureCache cache = new StructureCache(Long.MAX_VALUE);
+    Structure structure = cache.get(file);
+
+    cache.invalidate(file);
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getEstimatedBytes());
+    assertNotSame(structure, cache.get(file));
+  }
+
+  private File write(String name, int version) throws IOException {
+    File file = new File(folder.getRoot(), name);
+    structure(version).write(file, StructureFormat.NBT, CompressionCodec.GZIP);
+    return file;
+  }
+
+  /**
+   * Creates a small structure of a single block type.
+   */
+  static StructureData structure(int version) {
+    BlockStorage blocks = new DenseBlockStorage(4, 4, 4);
+    blocks.fill(0, 0, 0, 3, 3, 3, 0);
+    return new StructureData("tester", version, blocks,
+        Collections.singletonList(new PaletteEntry("minecraft:stone", Collections.emptyMap())));
+  }
+
+}
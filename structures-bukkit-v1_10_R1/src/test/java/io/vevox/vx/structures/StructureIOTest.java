@@ -0,0 +1,93 @@
+package io.vevox.vx.structures;
+
+import org.bukkit.plugin.Plugin;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for how {@link StructureIO} orders saves and keeps its cache up to date.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+public class StructureIOTest {
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private final StructureCache cache = new StructureCache(Long.MAX_VALUE);
+  private final StructureIO io = new StructureIO(plugin(), 4, cache);
+
+  @After
+  public void shutDown() {
+    io.shutdown();
+  }
+
+  @Test
+  public void chainsSavesToTheSameFile() throws IOException {
+    File file = new File(folder.getRoot(), "chained.nbt");
+    List<CompletableFuture<Void>> saves = new ArrayList<>();
+    List<CompletableFuture<Boolean>> ordered = new ArrayList<>();
+    for (int version = 1; version <= 20; version++) {
+      CompletableFuture<Void> previous = saves.isEmpty() ? null : saves.get(saves.size() - 1);
+      CompletableFuture<Void> save = io.saveAsync(new Structure(StructureCacheTest.structure(version)), file);
+      saves.add(save);
+      ordered.add(save.thenApply(done -> previous == null || previous.isDone()));
+    }
+
+    // Each save is only written once the one before it has finished, so the last one submitted is left on disk.
+    for (CompletableFuture<Boolean> save : ordered)
+      assertTrue(save.join());
+    assertEquals(20, new Structure(file).version);
+  }
+
+  @Test
+  public void savesKeepTheirVersion() throws IOException {
+    File file = new File(folder.getRoot(), "unversioned.nbt");
+    io.saveAsync(new Structure(StructureCacheTest.structure(0)), file).join();
+    assertEquals(0, new Structure(file).version);
+  }
+
+  @Test
+  public void savesInvalidateTheCache() throws IOException {
+    File file = new File(folder.getRoot(), "cached.nbt");
+    io.saveAsync(new Structure(StructureCacheTest.structure(1)), file).join();
+    assertEquals(1, io.loadAsync(file).join().version);
+
+    io.saveAsync(new Structure(StructureCacheTest.structure(2)), file).join();
+    assertEquals(0, cache.size());
+    assertEquals(2, io.loadAsync(file).join().version);
+  }
+
+  /**
+   * Creates a plugin that only has a name and a logger, which is all that work kept off the server thread uses.
+   */
+  private static Plugin plugin() {
+    Logger logger = Logger.getLogger(StructureIOTest.class.getName());
+    return (Plugin) Proxy.newProxyInstance(StructureIOTest.class.getClassLoader(), new Class<?>[]{Plugin.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getName":
+              return "StructureIOTest";
+            case "getLogger":
+              return logger;
+            default:
+              throw new UnsupportedOperationException(method.getName());
+          }
+        });
+  }
+
+}
@@ -0,0 +1,91 @@
+package io.vevox.vx.structures;
+
+import net.minecraft.server.v1_10_R1.IBlockData;
+import org.bukkit.Location;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for how an {@link UndoJournal} packs the cells it records, spills them to disk and replays them.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+public class UndoJournalTest {
+
+  private static final IBlockData STONE = state(), DIRT = state(), AIR = state();
+
+  @Test
+  public void replaysRecordedCells() throws IOException {
+    UndoJournal journal = begin(new UndoJournal(), 5, 4, 3);
+    journal.record(0, 0, 0, STONE);
+    journal.record(4, 3, 2, DIRT);
+    journal.record(2, 1, 0, STONE);
+    journal.record(1, 2, 1, AIR);
+    assertEquals(4, journal.size());
+    assertFalse(journal.isSpilled());
+
+    // States are numbered in the order they were first recorded, and every other cell is left empty.
+    BlockStorage blocks = journal.replay();
+    assertEquals(0, blocks.get(0, 0, 0));
+    assertEquals(1, blocks.get(4, 3, 2));
+    assertEquals(0, blocks.get(2, 1, 0));
+    assertEquals(2, blocks.get(1, 2, 1));
+    assertEquals(BlockStorage.EMPTY, blocks.get(3, 3, 2));
+  }
+
+  @Test
+  public void spillsToDisk() throws IOException {
+    try (UndoJournal journal = begin(new UndoJournal(16), 10, 10, 10)) {
+      for (int y = 0; y < 10; y++)
+        for (int x = 0; x < 10; x++)
+          journal.record(x, y, 9 - x, (x + y) % 2 == 0 ? STONE : DIRT);
+      journal.end();
+      assertTrue(journal.isSpilled());
+      assertEquals(100, journal.size());
+
+      // Cells spilled to disk and cells still in memory are both replayed.
+      BlockStorage blocks = journal.replay();
+      for (int y = 0; y < 10; y++)
+        for (int z = 0; z < 10; z++)
+          for (int x = 0; x < 10; x++)
+            assertEquals(z == 9 - x ? (x + y) % 2 : BlockStorage.EMPTY, blocks.get(x, y, z));
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void cannotReplayOnceClosed() throws IOException {
+    UndoJournal journal = begin(new UndoJournal(1), 2, 2, 2);
+    journal.record(0, 0, 0, STONE);
+    journal.record(1, 1, 1, DIRT);
+    journal.close();
+    journal.replay();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void recordsOnlyOnePaste() {
+    begin(begin(new UndoJournal(), 1, 1, 1), 1, 1, 1);
+  }
+
+  private static UndoJournal begin(UndoJournal journal, int sizeX, int sizeY, int sizeZ) {
+    journal.begin(new Location(null, 0, 0, 0), new DenseBlockStorage(sizeX, sizeY, sizeZ), PasteOptions.DEFAULT);
+    return journal;
+  }
+
+  /**
+   * Creates a distinct block state. Journals only compare states by identity, so none of its methods are needed.
+   */
+  private static IBlockData state() {
+    return (IBlockData) Proxy.newProxyInstance(UndoJournalTest.class.getClassLoader(),
+        new Class<?>[]{IBlockData.class}, (proxy, method, args) -> {
+          throw new UnsupportedOperationException(method.getName());
+        });
+  }
+
+}
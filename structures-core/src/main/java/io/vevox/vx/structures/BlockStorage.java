@@ -0,0 +1,236 @@
+package io.vevox.vx.structures;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Size-indexed storage of the palette indices that make up a {@link StructureData}. Every cell of the structure's
+ * bounding box holds exactly one index, or {@link #EMPTY} if the cell holds no block (such as cells that were
+ * <code>minecraft:structure_void</code> when captured).
+ * <p>
+ * Cells are indexed in Y, Z, X order, the same order vanilla uses for chunk sections, so walking a structure along
+ * its X axis is the cheapest way to visit it.
+ *
+ * @author Matthew Struble
+ * @see DenseBlockStorage
+ * @see SparseBlockStorage
+ * @see MappedBlockStorage
+ * @since 0.1.0
+ */
+abstract class BlockStorage {
+
+  /**
+   * The value stored in cells that do not hold a block.
+   */
+  static final int EMPTY = -1;
+
+  /**
+   * Structures where at most this fraction of 16x16x16 bricks hold anything other than their most common state are
+   * stored sparsely by {@link #compact(BlockStorage, int)}.
+   */
+  static final double SPARSE_THRESHOLD = 0.5;
+
+  /**
+   * Storages of at least this many cells are built brick by brick by {@link #builder(int, int, int)}.
+   */
+  static final int SPARSE_BUILD_VOLUME = 1 << 18;
+
+  final int sizeX, sizeY, sizeZ;
+
+  /**
+   * @param sizeX The size along the X axis.
+   * @param sizeY The size along the Y axis.
+   * @param sizeZ The size along the Z axis.
+   *
+   * @throws IllegalArgumentException If any size is zero or less, or the total volume is too large to be indexed.
+   */
+  BlockStorage(int sizeX, int sizeY, int sizeZ) throws IllegalArgumentException {
+    Validate.isTrue(sizeX > 0 && sizeY > 0 && sizeZ > 0, "Storage size must be all positive");
+    Validate.isTrue((long) sizeX * sizeY * sizeZ <= Integer.MAX_VALUE, "Storage volume is too large");
+    this.sizeX = sizeX;
+    this.sizeY = sizeY;
+    this.sizeZ = sizeZ;
+  }
+
+  /**
+   * Checks if the given relative position lies within this storage.
+   *
+   * @param x The X position.
+   * @param y The Y position.
+   * @param z The Z position.
+   *
+   * @return True if in bounds, false otherwise.
+   */
+  boolean contains(int x, int y, int z) {
+    return x >= 0 && y >= 0 && z >= 0 && x < sizeX && y < sizeY && z < sizeZ;
+  }
+
+  /**
+   * Gets the flat cell index of the given relative position. No bounds checking is done.
+   *
+   * @param x The X position.
+   * @param y The Y position.
+   * @param z The Z position.
+   *
+   * @return The cell index.
+   */
+  int index(int x, int y, int z) {
+    return (y * sizeZ + z) * sizeX + x;
+  }
+
+  /**
+   * @return The total number of cells in this storage.
+   */
+  int volume() {
+    return sizeX * sizeY * sizeZ;
+  }
+
+  /**
+   * Estimates how many bytes of heap this storage retains, including any storage it views. Memory that is not on the
+   * heap, such as a mapped file, is not counted.
+   *
+   * @return The estimated size in bytes.
+   */
+  abstract long estimatedBytes();
+
+  /**
+   * Gets the palette index at the given relative position. No bounds checking is done.
+   *
+   * @param x The X position.
+   * @param y The Y position.
+   * @param z The Z position.
+   *
+   * @return The palette index, or {@link #EMPTY}.
+   */
+  abstract int get(int x, int y, int z);
+
+  /**
+   * Gets the palette index at the given flat cell index.
+   *
+   * @param index The cell index.
+   *
+   * @return The palette index, or {@link #EMPTY}.
+   * @see #index(int, int, int)
+   */
+  int get(int index) {
+    int row = index / sizeX;
+    return get(index - row * sizeX, row / sizeZ, row % sizeZ);
+  }
+
+  /**
+   * Sets the palette index at the given relative position. No bounds checking is done.
+   *
+   * @param x     The X position.
+   * @param y     The Y position.
+   * @param z     The Z position.
+   * @param state The palette index, or {@link #EMPTY}.
+   *
+   * @throws UnsupportedOperationException If this storage is read-only.
+   */
+  abstract void set(int x, int y, int z, int state) throws UnsupportedOperationException;
+
+  /**
+   * Sets every cell in the given inclusive box of relative positions to the given palette index. No bounds checking
+   * is done.
+   *
+   * @param fromX The minimum X position.
+   * @param fromY The minimum Y position.
+   * @param fromZ The minimum Z position.
+   * @param toX   The maximum X position.
+   * @param toY   The maximum Y position.
+   * @param toZ   The maximum Z position.
+   * @param state The palette index, or {@link #EMPTY}.
+   *
+   * @throws UnsupportedOperationException If this storage is read-only.
+   */
+  void fill(int fromX, int fromY, int fromZ, int toX, int toY, int toZ, int state)
+      throws UnsupportedOperationException {
+    for (int y = fromY; y <= toY; y++)
+      for (int z = fromZ; z <= toZ; z++)
+        for (int x = fromX; x <= toX; x++)
+          set(x, y, z, state);
+  }
+
+  /**
+   * Creates an empty storage to build a structure of the given size into, cell by cell, before it is
+   * {@link #compact(BlockStorage, int) compacted}. Large structures are built into a {@link SparseBlockStorage}, so
+   * that parts of the bounding box that are never written or are filled whole never have cells allocated, and the
+   * finished structure does not have to be copied out of a full-size storage when it turns out to be sparse.
+   *
+   * @param sizeX The size along the X axis.
+   * @param sizeY The size along the Y axis.
+   * @param sizeZ The size along the Z axis.
+   *
+   * @return The storage, with every cell set to {@link #EMPTY}.
+   * @throws IllegalArgumentException If any size is zero or less, or the total volume is too large to be indexed.
+   * @see #SPARSE_BUILD_VOLUME
+   */
+  static BlockStorage builder(int sizeX, int sizeY, int sizeZ) throws IllegalArgumentException {
+    if ((long) sizeX * sizeY * sizeZ >= SPARSE_BUILD_VOLUME) return new SparseBlockStorage(sizeX, sizeY, sizeZ, EMPTY);
+    return new DenseBlockStorage(sizeX, sizeY, sizeZ);
+  }
+
+  /**
+   * Picks the cheapest storage for the cells of the given storage. If few enough 16x16x16 bricks of the storage hold
+   * anything other than its most common state, the cells are copied into a {@link SparseBlockStorage} with that state
+   * as its background. Otherwise, the given storage is returned as-is.
+   * <p>
+   * A {@link SparseBlockStorage}, such as one from {@link #builder(int, int, int)}, is instead trimmed in place so that
+   * only bricks holding more than one state stay allocated, and is only copied into a {@link DenseBlockStorage} if
+   * too many of them are.
+   *
+   * @param storage     The storage to compact.
+   * @param paletteSize The size of the palette the storage indexes into.
+   *
+   * @return The compacted storage, or the given storage.
+   * @see #SPARSE_THRESHOLD
+   */
+  static BlockStorage compact(BlockStorage storage, int paletteSize) {
+    if (storage instanceof SparseBlockStorage) {
+      SparseBlockStorage sparse = (SparseBlockStorage) storage;
+      return sparse.trim() > SPARSE_THRESHOLD * sparse.brickCount() ? sparse.toDense() : sparse;
+    }
+    if (!(storage instanceof DenseBlockStorage)) return storage;
+
+    int[] counts = new int[paletteSize + 1];
+    for (int i = 0; i < storage.volume(); i++)
+      counts[storage.get(i) + 1]++;
+    int background = 0;
+    for (int i = 1; i < counts.length; i++)
+      if (counts[i] > counts[background]) background = i;
+    background--;
+
+    int bricksX = (storage.sizeX + 15) >> 4, bricksY = (storage.sizeY + 15) >> 4, bricksZ = (storage.sizeZ + 15) >> 4;
+    int occupied = 0;
+    for (int by = 0; by < bricksY; by++)
+      for (int bz = 0; bz < bricksZ; bz++)
+        for (int bx = 0; bx < bricksX; bx++)
+          if (!storage.isUniform(bx << 4, by << 4, bz << 4, Math.min((bx << 4) + 15, storage.sizeX - 1),
+              Math.min((by << 4) + 15, storage.sizeY - 1), Math.min((bz << 4) + 15, storage.sizeZ - 1), background))
+            occupied++;
+    if (occupied > SPARSE_THRESHOLD * bricksX * bricksY * bricksZ) return storage;
+
+    SparseBlockStorage sparse = new SparseBlockStorage(storage.sizeX, storage.sizeY, storage.sizeZ, background);
+    for (int y = 0; y < storage.sizeY; y++)
+      for (int z = 0; z < storage.sizeZ; z++)
+        for (int x = 0; x < storage.sizeX; x++) {
+          int state = storage.get(x, y, z);
+          if (state != background) sparse.set(x, y, z, state);
+        }
+    return sparse;
+  }
+
+  /**
+   * Checks if every cell in the given inclusive box of relative positions holds the given palette index. No bounds
+   * checking is done.
+   *
+   * @return True if every cell holds the state.
+   */
+  boolean isUniform(int fromX, int fromY, int fromZ, int toX, int toY, int toZ, int state) {
+    for (int y = fromY; y <= toY; y++)
+      for (int z = fromZ; z <= toZ; z++)
+        for (int x = fromX; x <= toX; x++)
+          if (get(x, y, z) != state) return false;
+    return true;
+  }
+
+}
@@ -0,0 +1,307 @@
+package io.vevox.vx.structures;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A compression scheme for {@link StructureFormat#NBT} structure files.
+ * <p>
+ * Every codec starts its output with a fixed {@link #magic() magic header}, which is how the codec of a file is
+ * detected when it is loaded, so files saved with any registered codec can be loaded without knowing how they were
+ * saved. Only {@link #GZIP} files can be loaded by vanilla structure blocks.
+ * <p>
+ * Other codecs can be added with {@link #register(CompressionCodec)}, as long as their magic header is not a prefix of
+ * another codec's, or the other way around.
+ *
+ * @author Matthew Struble
+ * @see StructureData#write(java.io.OutputStream, CompressionCodec)
+ * @since 0.1.0
+ */
+public abstract class CompressionCodec {
+
+  /**
+   * Gzip at the default level, the same as vanilla.
+   */
+  public static final CompressionCodec GZIP = gzip(Deflater.DEFAULT_COMPRESSION);
+
+  /**
+   * Raw deflate data at the default level, after a four byte header. Compresses as well as {@link #GZIP}, without the
+   * checksum.
+   */
+  public static final CompressionCodec DEFLATE = deflate(Deflater.DEFAULT_COMPRESSION);
+
+  /**
+   * No compression at all. Largest on disk, but costs nothing to read or write.
+   */
+  public static final CompressionCodec NONE = new CompressionCodec("none", new byte[]{NBTStreamReader.TAG_COMPOUND}) {
+    @Override
+    public OutputStream compress(OutputStream out) {
+      return out;
+    }
+
+    @Override
+    public InputStream decompress(InputStream in) {
+      return in;
+    }
+  };
+
+  /**
+   * A pure-Java codec from the LZ77 family. Compresses less than {@link #GZIP} but is several times faster both ways.
+   */
+  public static final CompressionCodec LZ = new LZCodec();
+
+  private static final List<CompressionCodec> CODECS = new CopyOnWriteArrayList<>(
+      Arrays.asList(GZIP, DEFLATE, NONE, LZ));
+
+  private final String name;
+  private final byte[] magic;
+
+  /**
+   * @param name  The name of the codec.
+   * @param magic The bytes every stream written by the codec starts with.
+   *
+   * @throws IllegalArgumentException If the name is null, or the magic header is null or empty.
+   */
+  protected CompressionCodec(String name, byte[] magic) throws IllegalArgumentException {
+    Validate.notNull(name);
+    Validate.isTrue(magic != null && magic.length > 0, "Magic header must not be empty");
+    this.name = name;
+    this.magic = magic.clone();
+  }
+
+  /**
+   * Gets a gzip codec at the given level.
+   *
+   * @param level The level, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}, or
+   *              {@link Deflater#DEFAULT_COMPRESSION}.
+   *
+   * @return The codec.
+   * @throws IllegalArgumentException If the level is not valid.
+   */
+  public static CompressionCodec gzip(int level) throws IllegalArgumentException {
+    checkLevel(level);
+    return new CompressionCodec("gzip", new byte[]{0x1F, (byte) 0x8B}) {
+      @Override
+      public OutputStream compress(OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, 8192) {
+          {
+            def.setLevel(level);
+          }
+        };
+      }
+
+      @Override
+      public InputStream decompress(InputStream in) throws IOException {
+        return new GZIPInputStream(in, 8192);
+      }
+    };
+  }
+
+  /**
+   * Gets a raw deflate codec at the given level.
+   *
+   * @param level The level, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}, or
+   *              {@link Deflater#DEFAULT_COMPRESSION}.
+   *
+   * @return The codec.
+   * @throws IllegalArgumentException If the level is not valid.
+   */
+  public static CompressionCodec deflate(int level) throws IllegalArgumentException {
+    checkLevel(level);
+    return new CompressionCodec("deflate", new byte[]{'V', 'X', 'Z', 'D'}) {
+      @Override
+      public OutputStream compress(OutputStream out) throws IOException {
+        writeMagic(out);
+        Deflater deflater = new Deflater(level, true);
+        return new DeflaterOutputStream(out, deflater, 8192) {
+          @Override
+          public void close() throws IOException {
+            try {
+              super.close();
+            } finally {
+              deflater.end();
+            }
+          }
+        };
+      }
+
+      @Override
+      public InputStream decompress(InputStream in) throws IOException {
+        readMagic(in);
+        Inflater inflater = new Inflater(true);
+        return new InflaterInputStream(in, inflater, 8192) {
+          @Override
+          public void close() throws IOException {
+            try {
+              super.close();
+            } finally {
+              inflater.end();
+            }
+          }
+        };
+      }
+    };
+  }
+
+  private static void checkLevel(int level) {
+    Validate.isTrue(level == Deflater.DEFAULT_COMPRESSION
+        || (level >= Deflater.BEST_SPEED && level <= Deflater.BEST_COMPRESSION), "Invalid compression level " + level);
+  }
+
+  /**
+   * Gets a registered codec by name, such as from a configuration file.
+   *
+   * @param name  The name of the codec, ignoring case.
+   * @param level The level to use if the codec is {@link #gzip(int) gzip} or {@link #deflate(int) deflate}.
+   *
+   * @return The codec.
+   * @throws IllegalArgumentException If the name is null or not the name of a registered codec, or the level is not
+   *                                  valid.
+   */
+  public static CompressionCodec forName(String name, int level) throws IllegalArgumentException {
+    Validate.notNull(name);
+    switch (name.toLowerCase()) {
+      case "gzip":
+        return gzip(level);
+      case "deflate":
+        return deflate(level);
+      default:
+        for (CompressionCodec codec : CODECS)
+          if (codec.name.equalsIgnoreCase(name)) return codec;
+        throw new IllegalArgumentException("Unknown compression codec " + name);
+    }
+  }
+
+  /**
+   * Registers a codec, so that files it writes are detected when loaded.
+   *
+   * @param codec The codec.
+   *
+   * @throws IllegalArgumentException If the codec is null, or its magic header clashes with a registered codec's.
+   */
+  public static void register(CompressionCodec codec) throws IllegalArgumentException {
+    Validate.notNull(codec);
+    synchronized (CODECS) {
+      for (CompressionCodec other : CODECS)
+        Validate.isTrue(!startsWith(codec.magic, other.magic) && !startsWith(other.magic, codec.magic),
+            "Magic header of codec %s clashes with codec %s", codec.name, other.name);
+      CODECS.add(codec);
+    }
+  }
+
+  /**
+   * Detects the codec of the given stream from its first bytes and returns a stream of its decompressed data.
+   *
+   * @param in The compressed stream.
+   *
+   * @return The decompressed stream.
+   * @throws IOException If the stream does not start with the magic header of any registered codec, or on read errors.
+   */
+  static InputStream detect(InputStream in) throws IOException {
+    if (!in.markSupported()) in = new BufferedInputStream(in);
+
+    int length = 0;
+    for (CompressionCodec codec : CODECS)
+      length = Math.max(length, codec.magic.length);
+    in.mark(length);
+    byte[] header = new byte[length];
+    int read = 0, count;
+    while (read < length && (count = in.read(header, read, length - read)) > 0)
+      read += count;
+    in.reset();
+
+    header = Arrays.copyOf(header, read);
+    for (CompressionCodec codec : CODECS)
+      if (startsWith(header, codec.magic)) return codec.decompress(in);
+    throw new IOException("Unknown structure compression");
+  }
+
+  private static boolean startsWith(byte[] bytes, byte[] prefix) {
+    if (bytes.length < prefix.length) return false;
+    for (int i = 0; i < prefix.length; i++)
+      if (bytes[i] != prefix[i]) return false;
+    return true;
+  }
+
+  /**
+   * @return The name of this codec.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return A copy of the bytes every stream written by this codec starts with.
+   */
+  public byte[] magic() {
+    return magic.clone();
+  }
+
+  /**
+   * Writes this codec's magic header to the given stream. For codecs whose format does not start with a header of its
+   * own, to call before any compressed data.
+   *
+   * @param out The stream.
+   *
+   * @throws IOException On write errors.
+   */
+  protected final void writeMagic(OutputStream out) throws IOException {
+    out.write(magic);
+  }
+
+  /**
+   * Reads and checks this codec's magic header from the given stream, the counterpart of
+   * {@link #writeMagic(OutputStream)}.
+   *
+   * @param in The stream.
+   *
+   * @throws IOException If the stream does not start with the magic header, or on read errors.
+   */
+  protected final void readMagic(InputStream in) throws IOException {
+    byte[] header = new byte[magic.length];
+    new DataInputStream(in).readFully(header);
+    if (!Arrays.equals(header, magic)) throw new IOException("Not a " + name + " stream");
+  }
+
+  /**
+   * Wraps a stream so that data written to it is compressed by this codec. Closing the returned stream must finish
+   * the compressed data and close the given stream.
+   *
+   * @param out The stream to write compressed data to.
+   *
+   * @return The stream to write uncompressed data to.
+   * @throws IOException On write errors.
+   */
+  public abstract OutputStream compress(OutputStream out) throws IOException;
+
+  /**
+   * Wraps a stream of data compressed by this codec, starting at its magic header. Closing the returned stream must
+   * close the given stream.
+   *
+   * @param in The stream to read compressed data from.
+   *
+   * @return The stream to read uncompressed data from.
+   * @throws IOException If the data was not compressed by this codec, or on read errors.
+   */
+  public abstract InputStream decompress(InputStream in) throws IOException;
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+}
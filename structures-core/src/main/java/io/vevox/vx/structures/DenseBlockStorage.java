@@ -0,0 +1,98 @@
+package io.vevox.vx.structures;
+
+/**
+ * {@link BlockStorage} that holds a value for every cell, bit-packed into a <code>long[]</code> the same way vanilla
+ * packs chunk sections.
+ * <p>
+ * Each cell is stored as its palette index plus one, so that {@link #EMPTY} is zero and a new storage is empty without
+ * being filled. Cells use as many bits as the largest stored value needs, and never span two longs. Storing a value
+ * that does not fit repacks the whole storage at the wider size, so a structure with a palette of under 16 states
+ * costs at most 4 bits per cell.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+final class DenseBlockStorage extends BlockStorage {
+
+  private long[] data;
+  private int bits;
+  private int perLong;
+  private long mask;
+
+  /**
+   * Creates a new storage of the given size with every cell set to {@link #EMPTY}.
+   *
+   * @param sizeX The size along the X axis.
+   * @param sizeY The size along the Y axis.
+   * @param sizeZ The size along the Z axis.
+   *
+   * @throws IllegalArgumentException If any size is zero or less, or the total volume is too large to be indexed.
+   */
+  DenseBlockStorage(int sizeX, int sizeY, int sizeZ) throws IllegalArgumentException {
+    super(sizeX, sizeY, sizeZ);
+    resize(1);
+  }
+
+  @Override
+  long estimatedBytes() {
+    return 48 + data.length * 8L;
+  }
+
+  @Override
+  int get(int x, int y, int z) {
+    return get(index(x, y, z));
+  }
+
+  @Override
+  int get(int index) {
+    return (int) ((data[index / perLong] >>> ((index % perLong) * bits)) & mask) - 1;
+  }
+
+  @Override
+  void set(int x, int y, int z, int state) {
+    set(index(x, y, z), state + 1L);
+  }
+
+  @Override
+  void fill(int fromX, int fromY, int fromZ, int toX, int toY, int toZ, int state) {
+    long value = state + 1L;
+    if (value > mask) resize(bitsFor(value));
+
+    for (int y = fromY; y <= toY; y++)
+      for (int z = fromZ; z <= toZ; z++) {
+        int row = index(fromX, y, z);
+        for (int index = row; index <= row + toX - fromX; index++)
+          set(index, value);
+      }
+  }
+
+  private void set(int index, long value) {
+    if (value > mask) resize(bitsFor(value));
+
+    int word = index / perLong, shift = (index % perLong) * bits;
+    data[word] = data[word] & ~(mask << shift) | value << shift;
+  }
+
+  private static int bitsFor(long value) {
+    return 64 - Long.numberOfLeadingZeros(value);
+  }
+
+  private void resize(int bits) {
+    long[] old = data;
+    int oldBits = this.bits, oldPerLong = perLong;
+    long oldMask = mask;
+
+    this.bits = bits;
+    perLong = 64 / bits;
+    mask = (1L << bits) - 1;
+    int volume = volume();
+    data = new long[(volume + perLong - 1) / perLong];
+
+    if (old == null) return;
+    for (int index = 0; index < volume; index++) {
+      long value = (old[index / oldPerLong] >>> ((index % oldPerLong) * oldBits)) & oldMask;
+      if (value != 0) data[index / perLong] |= value << ((index % perLong) * bits);
+    }
+  }
+
+}
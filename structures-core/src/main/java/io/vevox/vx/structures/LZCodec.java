@@ -0,0 +1,301 @@
+package io.vevox.vx.structures;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * {@link CompressionCodec#LZ}, a byte-oriented LZ77 codec in the style of LZ4, written in plain Java.
+ * <p>
+ * After the magic header, data is split into blocks of up to 64 KiB, each compressed on its own. A block starts with
+ * its uncompressed length and its compressed length as ints, with a negative compressed length meaning the block is
+ * stored as-is because it did not compress; a block with an uncompressed length of zero ends the stream.
+ * <p>
+ * Compressed blocks are a series of sequences, each a run of literal bytes followed by a copy of earlier output. A
+ * sequence starts with a token byte holding the literal length in its high four bits and the copy length less four in
+ * its low four bits, either of which continues into following bytes of 255 and a remainder when it is 15 or more. The
+ * literals come next, then the distance back to the copy as two little-endian bytes. The last sequence of a block has
+ * literals only.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+final class LZCodec extends CompressionCodec {
+
+  static final int BLOCK_SIZE = 1 << 16;
+
+  private static final int MIN_MATCH = 4;
+  // Matches never start in the last bytes of a block, which keeps the compressor's reads in bounds.
+  private static final int LAST_LITERALS = 5;
+  private static final int MAX_DISTANCE = 0xFFFF;
+  private static final int HASH_BITS = 12;
+
+  LZCodec() {
+    super("lz", new byte[]{'V', 'X', 'L', 'Z'});
+  }
+
+  @Override
+  public OutputStream compress(OutputStream out) throws IOException {
+    writeMagic(out);
+    return new LZOutputStream(out);
+  }
+
+  @Override
+  public InputStream decompress(InputStream in) throws IOException {
+    readMagic(in);
+    return new LZInputStream(in);
+  }
+
+  /**
+   * @param length The length of a block.
+   *
+   * @return The largest size the block can compress to.
+   */
+  static int maxCompressedLength(int length) {
+    return length + length / 255 + 16;
+  }
+
+  /**
+   * Compresses a block.
+   *
+   * @param src    The data to compress.
+   * @param length The length of the data.
+   * @param dst    The array to compress into, at least {@link #maxCompressedLength(int)} long.
+   * @param table  A scratch table of <code>1 &lt;&lt; 12</code> ints.
+   *
+   * @return The compressed length.
+   */
+  static int compress(byte[] src, int length, byte[] dst, int[] table) {
+    // Positions are stored plus one, so that zero means the slot is empty.
+    Arrays.fill(table, 0);
+
+    int anchor = 0, out = 0, i = 0, limit = length - LAST_LITERALS - MIN_MATCH, misses = 0;
+    while (i <= limit) {
+      int sequence = readInt(src, i), slot = hash(sequence);
+      int candidate = table[slot] - 1;
+      table[slot] = i + 1;
+
+      if (candidate < 0 || i - candidate > MAX_DISTANCE || readInt(src, candidate) != sequence) {
+        // Skip ahead faster through data that does not compress.
+        i += 1 + (misses++ >> 6);
+        continue;
+      }
+      misses = 0;
+
+      int match = MIN_MATCH;
+      while (i + match < length - LAST_LITERALS && src[candidate + match] == src[i + match]) match++;
+
+      out = writeSequence(src, anchor, i - anchor, dst, out, i - candidate, match);
+      i += match;
+      anchor = i;
+    }
+    return writeSequence(src, anchor, length - anchor, dst, out, 0, 0);
+  }
+
+  private static int writeSequence(byte[] src, int from, int literals, byte[] dst, int out, int distance, int match) {
+    int token = out++;
+    dst[token] = (byte) (Math.min(literals, 15) << 4 | (match == 0 ? 0 : Math.min(match - MIN_MATCH, 15)));
+    if (literals >= 15) out = writeLength(dst, out, literals - 15);
+    System.arraycopy(src, from, dst, out, literals);
+    out += literals;
+
+    if (match == 0) return out;
+    dst[out++] = (byte) distance;
+    dst[out++] = (byte) (distance >>> 8);
+    if (match - MIN_MATCH >= 15) out = writeLength(dst, out, match - MIN_MATCH - 15);
+    return out;
+  }
+
+  private static int writeLength(byte[] dst, int out, int length) {
+    for (; length >= 255; length -= 255)
+      dst[out++] = (byte) 255;
+    dst[out++] = (byte) length;
+    return out;
+  }
+
+  /**
+   * Decompresses a block.
+   *
+   * @param src    The compressed data.
+   * @param length The compressed length.
+   * @param dst    The array to decompress into.
+   * @param size   The uncompressed length.
+   *
+   * @throws IOException If the data is corrupt.
+   */
+  static void decompress(byte[] src, int length, byte[] dst, int size) throws IOException {
+    int in = 0, out = 0;
+    try {
+      while (true) {
+        int token = src[in++] & 0xFF;
+
+        int literals = token >>> 4;
+        if (literals == 15) {
+          int b;
+          do literals += b = src[in++] & 0xFF;
+          while (b == 255);
+        }
+        if (in + literals > length || out + literals > size) throw new IOException("Corrupt lz block");
+        System.arraycopy(src, in, dst, out, literals);
+        in += literals;
+        out += literals;
+        if (in == length) break;
+
+        int distance = (src[in++] & 0xFF) | (src[in++] & 0xFF) << 8;
+        int match = (token & 15) + MIN_MATCH;
+        if ((token & 15) == 15) {
+          int b;
+          do match += b = src[in++] & 0xFF;
+          while (b == 255);
+        }
+        if (distance == 0 || distance > out || out + match > size) throw new IOException("Corrupt lz block");
+        // Copies may overlap their own output, so they go byte by byte.
+        for (int from = out - distance, end = out + match; out < end; )
+          dst[out++] = dst[from++];
+      }
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new IOException("Corrupt lz block", e);
+    }
+    if (out != size) throw new IOException("Corrupt lz block");
+  }
+
+  private static int readInt(byte[] bytes, int i) {
+    return (bytes[i] & 0xFF) | (bytes[i + 1] & 0xFF) << 8 | (bytes[i + 2] & 0xFF) << 16 | bytes[i + 3] << 24;
+  }
+
+  private static int hash(int sequence) {
+    return (sequence * -1640531535) >>> (32 - HASH_BITS);
+  }
+
+  private static final class LZOutputStream extends OutputStream {
+
+    private final DataOutputStream out;
+    private final byte[] buffer = new byte[BLOCK_SIZE];
+    private final byte[] compressed = new byte[maxCompressedLength(BLOCK_SIZE)];
+    private final int[] table = new int[1 << HASH_BITS];
+    private int length;
+    private boolean closed;
+
+    LZOutputStream(OutputStream out) {
+      this.out = new DataOutputStream(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      if (length == buffer.length) writeBlock();
+      buffer[length++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      while (len > 0) {
+        if (length == buffer.length) writeBlock();
+        int count = Math.min(len, buffer.length - length);
+        System.arraycopy(b, off, buffer, length, count);
+        length += count;
+        off += count;
+        len -= count;
+      }
+    }
+
+    private void writeBlock() throws IOException {
+      if (length == 0) return;
+      int size = compress(buffer, length, compressed, table);
+      out.writeInt(length);
+      if (size < length) {
+        out.writeInt(size);
+        out.write(compressed, 0, size);
+      } else {
+        out.writeInt(-1);
+        out.write(buffer, 0, length);
+      }
+      length = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      writeBlock();
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) return;
+      closed = true;
+      try {
+        writeBlock();
+        out.writeInt(0);
+      } finally {
+        out.close();
+      }
+    }
+
+  }
+
+  private static final class LZInputStream extends InputStream {
+
+    private final DataInputStream in;
+    private final byte[] buffer = new byte[BLOCK_SIZE];
+    private byte[] compressed = new byte[0];
+    private int position, length;
+    private boolean ended;
+
+    LZInputStream(InputStream in) {
+      this.in = new DataInputStream(in);
+    }
+
+    private boolean fill() throws IOException {
+      while (position == length) {
+        if (ended) return false;
+        int size = in.readInt();
+        if (size == 0) {
+          ended = true;
+          return false;
+        }
+        if (size < 0 || size > BLOCK_SIZE) throw new IOException("Corrupt lz block length " + size);
+
+        int stored = in.readInt();
+        if (stored < 0) in.readFully(buffer, 0, size);
+        else {
+          if (stored > maxCompressedLength(size)) throw new IOException("Corrupt lz block length " + stored);
+          if (compressed.length < stored) compressed = new byte[maxCompressedLength(BLOCK_SIZE)];
+          in.readFully(compressed, 0, stored);
+          decompress(compressed, stored, buffer, size);
+        }
+        position = 0;
+        length = size;
+      }
+      return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return fill() ? buffer[position++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) return 0;
+      if (!fill()) return -1;
+      int count = Math.min(len, length - position);
+      System.arraycopy(buffer, position, b, off, count);
+      position += count;
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return length - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+
+  }
+
+}
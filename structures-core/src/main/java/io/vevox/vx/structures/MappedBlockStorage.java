@@ -0,0 +1,105 @@
+package io.vevox.vx.structures;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Read-only {@link BlockStorage} that reads palette indices directly out of a memory-mapped <code>.vxs</code> file.
+ * Nothing is decoded up front; each lookup finds its tile through the file's tile table and unpacks a single value.
+ * <p>
+ * Each tile's header is checked against the file and the palette the first time the tile is read, and every value
+ * read is checked against the palette, so tiles that are never read are never touched. A corrupt tile fails the lookup
+ * with an {@link UncheckedIOException}.
+ *
+ * @author Matthew Struble
+ * @see VXSCodec
+ * @since 0.1.0
+ */
+final class MappedBlockStorage extends BlockStorage {
+
+  private final ByteBuffer buffer;
+  private final int tableOffset;
+  private final int tilesX, tilesZ;
+
+  private final int paletteSize, maxBits;
+  // Whether the header of each tile has been checked. Checks are idempotent, so racing threads only repeat them.
+  private final boolean[] checked;
+
+  /**
+   * @param buffer      The mapped file.
+   * @param tableOffset The offset of the tile table in the file, which must lie within it.
+   * @param sizeX       The size along the X axis.
+   * @param sizeY       The size along the Y axis.
+   * @param sizeZ       The size along the Z axis.
+   * @param paletteSize The size of the palette the cells index into.
+   */
+  MappedBlockStorage(ByteBuffer buffer, int tableOffset, int sizeX, int sizeY, int sizeZ, int paletteSize) {
+    super(sizeX, sizeY, sizeZ);
+    this.buffer = buffer;
+    this.tableOffset = tableOffset;
+    tilesX = VXSCodec.tiles(sizeX);
+    tilesZ = VXSCodec.tiles(sizeZ);
+    this.paletteSize = paletteSize;
+    maxBits = 32 - Integer.numberOfLeadingZeros(paletteSize);
+    checked = new boolean[tilesX * VXSCodec.tiles(sizeY) * tilesZ];
+  }
+
+  @Override
+  long estimatedBytes() {
+    // The blocks themselves live in the mapping, outside of the heap.
+    return 112 + checked.length;
+  }
+
+  /**
+   * @throws UncheckedIOException If the tile holding the cell is corrupt.
+   */
+  @Override
+  int get(int x, int y, int z) throws UncheckedIOException {
+    int tile = ((y >> 4) * tilesZ + (z >> 4)) * tilesX + (x >> 4);
+    int offset = checked[tile] ? (int) buffer.getLong(tableOffset + tile * 8) : check(tile);
+
+    int bits = buffer.getInt(offset);
+    if (bits == 0) return buffer.getInt(offset + 4) - 1;
+
+    int cell = VXSCodec.cell(x, y, z);
+    int perLong = 64 / bits;
+    long word = buffer.getLong(offset + VXSCodec.TILE_HEADER + (cell / perLong) * 8);
+    int value = (int) ((word >>> ((cell % perLong) * bits)) & ((1L << bits) - 1));
+    // Unless the palette fills every bit of the cells, they can hold values past its end.
+    if (value > paletteSize) throw corrupt(tile, "holds invalid state " + value);
+    return value - 1;
+  }
+
+  /**
+   * Checks the header of a tile that has not been read before.
+   *
+   * @return The offset of the tile.
+   */
+  private int check(int tile) throws UncheckedIOException {
+    long offset = buffer.getLong(tableOffset + tile * 8);
+    if (offset < tableOffset + checked.length * 8L || offset > buffer.capacity() - VXSCodec.TILE_HEADER)
+      throw corrupt(tile, "is outside of the file");
+
+    int bits = buffer.getInt((int) offset);
+    if (bits < 0 || bits > maxBits)
+      throw corrupt(tile, "has " + bits + " bits per cell for a palette of " + paletteSize);
+    if (bits == 0) {
+      int value = buffer.getInt((int) offset + 4);
+      if (value < 0 || value > paletteSize) throw corrupt(tile, "holds invalid state " + value);
+    } else if (offset + VXSCodec.tileLength(bits) > buffer.capacity()) throw corrupt(tile, "is truncated");
+
+    checked[tile] = true;
+    return (int) offset;
+  }
+
+  private static UncheckedIOException corrupt(int tile, String problem) {
+    return new UncheckedIOException(new IOException("Corrupt vxs structure file: tile " + tile + " " + problem));
+  }
+
+  @Override
+  void set(int x, int y, int z, int state) throws UnsupportedOperationException {
+    throw new UnsupportedOperationException("Mapped structures are read-only");
+  }
+
+}
@@ -0,0 +1,281 @@
+package io.vevox.vx.structures;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and timers for structure loading, saving and pasting, shared by every structure in the JVM.
+ * <p>
+ * Metrics are disabled by default. While disabled, instrumented code does no more than read a volatile flag: timers
+ * do not read the clock and streams are not wrapped to count bytes. While enabled, updates go to {@link LongAdder}s,
+ * so threads loading and pasting at the same time do not contend on them. Metrics are polled with {@link #snapshot()}.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+@SuppressWarnings("unused WeakerAccess")
+public final class Metrics {
+
+  /**
+   * A count of events or amounts, such as bytes or blocks.
+   */
+  public static final class Counter {
+
+    private final LongAdder count = new LongAdder();
+
+    private Counter() {
+    }
+
+    /**
+     * Adds to this counter if metrics are enabled.
+     *
+     * @param amount The amount to add.
+     */
+    public void add(long amount) {
+      if (enabled) count.add(amount);
+    }
+
+    /**
+     * Adds one to this counter if metrics are enabled.
+     */
+    public void increment() {
+      if (enabled) count.increment();
+    }
+
+    /**
+     * @return The current count.
+     */
+    public long get() {
+      return count.sum();
+    }
+
+  }
+
+  /**
+   * A count of timed operations, with their total and longest duration.
+   */
+  public static final class Timer {
+
+    private final LongAdder count = new LongAdder(), totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    private Timer() {
+    }
+
+    /**
+     * Starts timing an operation.
+     *
+     * @return The start time to pass to {@link #stop(long)}, or {@link #OFF} if metrics are disabled.
+     */
+    public long start() {
+      return enabled ? System.nanoTime() : OFF;
+    }
+
+    /**
+     * Stops timing an operation and records it, unless it was started while metrics were disabled.
+     *
+     * @param start The start time returned by {@link #start()}.
+     */
+    public void stop(long start) {
+      if (start != OFF) record(System.nanoTime() - start);
+    }
+
+    /**
+     * Records an operation that took the given time, if metrics are enabled.
+     *
+     * @param nanos The duration, in nanoseconds.
+     */
+    public void record(long nanos) {
+      if (!enabled) return;
+      count.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * @return The number of operations recorded.
+     */
+    public long getCount() {
+      return count.sum();
+    }
+
+    /**
+     * @return The total duration of every operation recorded, in nanoseconds.
+     */
+    public long getTotalNanos() {
+      return totalNanos.sum();
+    }
+
+    /**
+     * @return The longest duration recorded, in nanoseconds.
+     */
+    public long getMaxNanos() {
+      return maxNanos.get();
+    }
+
+    /**
+     * @return The mean duration of the operations recorded, in nanoseconds, or zero if none have been.
+     */
+    public long getMeanNanos() {
+      long count = getCount();
+      return count == 0 ? 0 : getTotalNanos() / count;
+    }
+
+    private void reset() {
+      count.reset();
+      totalNanos.reset();
+      maxNanos.reset();
+    }
+
+  }
+
+  /**
+   * The start time returned by {@link Timer#start()} while metrics are disabled.
+   */
+  public static final long OFF = Long.MIN_VALUE;
+
+  private static volatile boolean enabled;
+
+  /**
+   * Time spent decoding structures from files and streams.
+   */
+  public static final Timer DECODE = new Timer();
+
+  /**
+   * Time spent encoding structures to files and streams.
+   */
+  public static final Timer ENCODE = new Timer();
+
+  /**
+   * Time spent pasting structures all at once.
+   */
+  public static final Timer PASTE = new Timer();
+
+  /**
+   * Time spent by paste jobs in each server tick.
+   */
+  public static final Timer PASTE_TICK = new Timer();
+
+  /**
+   * Encoded bytes read while decoding structures. Memory-mapped files count their full size.
+   */
+  public static final Counter BYTES_READ = new Counter();
+
+  /**
+   * Encoded bytes written while encoding structures.
+   */
+  public static final Counter BYTES_WRITTEN = new Counter();
+
+  /**
+   * Blocks written by pastes.
+   */
+  public static final Counter BLOCKS_WRITTEN = new Counter();
+
+  /**
+   * Blocks not written by {@link PasteMode#DIFF} pastes because they were already in place.
+   */
+  public static final Counter BLOCKS_SKIPPED = new Counter();
+
+  /**
+   * Chunks in which pastes wrote at least one block.
+   */
+  public static final Counter CHUNKS_TOUCHED = new Counter();
+
+  /**
+   * Structures found in a cache.
+   */
+  public static final Counter CACHE_HITS = new Counter();
+
+  /**
+   * Structures that had to be loaded because they were not in a cache.
+   */
+  public static final Counter CACHE_MISSES = new Counter();
+
+  /**
+   * Paste job ticks that went over their time budget.
+   */
+  public static final Counter BUDGET_OVERRUNS = new Counter();
+
+  private static final Map<String, Timer> TIMERS = new LinkedHashMap<>();
+  private static final Map<String, Counter> COUNTERS = new LinkedHashMap<>();
+
+  static {
+    TIMERS.put("decode", DECODE);
+    TIMERS.put("encode", ENCODE);
+    TIMERS.put("paste", PASTE);
+    TIMERS.put("paste.tick", PASTE_TICK);
+    COUNTERS.put("bytes.read", BYTES_READ);
+    COUNTERS.put("bytes.written", BYTES_WRITTEN);
+    COUNTERS.put("blocks.written", BLOCKS_WRITTEN);
+    COUNTERS.put("blocks.skipped", BLOCKS_SKIPPED);
+    COUNTERS.put("chunks.touched", CHUNKS_TOUCHED);
+    COUNTERS.put("cache.hits", CACHE_HITS);
+    COUNTERS.put("cache.misses", CACHE_MISSES);
+    COUNTERS.put("paste.tick.overruns", BUDGET_OVERRUNS);
+  }
+
+  private Metrics() {
+  }
+
+  /**
+   * @return True if metrics are being recorded.
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Starts or stops recording metrics. Values already recorded are kept.
+   *
+   * @param enabled True to record metrics.
+   */
+  public static void setEnabled(boolean enabled) {
+    Metrics.enabled = enabled;
+  }
+
+  /**
+   * @return Every timer, by name, in a fixed order.
+   */
+  public static Map<String, Timer> getTimers() {
+    return Collections.unmodifiableMap(TIMERS);
+  }
+
+  /**
+   * @return Every counter, by name, in a fixed order.
+   */
+  public static Map<String, Counter> getCounters() {
+    return Collections.unmodifiableMap(COUNTERS);
+  }
+
+  /**
+   * Reads every metric at once. Each timer contributes its count, total and maximum in nanoseconds, as
+   * <code>name.count</code>, <code>name.total</code> and <code>name.max</code>.
+   * <p>
+   * Metrics that are updated while the snapshot is taken may or may not be included, so values are only consistent
+   * with each other when nothing is running.
+   *
+   * @return The values, by name, in a fixed order.
+   */
+  public static Map<String, Long> snapshot() {
+    Map<String, Long> values = new LinkedHashMap<>();
+    TIMERS.forEach((name, timer) -> {
+      values.put(name + ".count", timer.getCount());
+      values.put(name + ".total", timer.getTotalNanos());
+      values.put(name + ".max", timer.getMaxNanos());
+    });
+    COUNTERS.forEach((name, counter) -> values.put(name, counter.get()));
+    return values;
+  }
+
+  /**
+   * Sets every metric back to zero.
+   */
+  public static void reset() {
+    TIMERS.values().forEach(Timer::reset);
+    COUNTERS.values().forEach(counter -> counter.count.reset());
+  }
+
+}
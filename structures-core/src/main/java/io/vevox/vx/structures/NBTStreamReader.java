@@ -0,0 +1,256 @@
+package io.vevox.vx.structures;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A pull-style reader for uncompressed NBT data that decodes tags as they are requested instead of building a tree of
+ * tag objects.
+ * <p>
+ * Callers walk compounds with {@link #nextTag()}, which reads the header of the next named tag, and then read that
+ * tag's payload with the matching <code>read</code> method, descend into it with {@link #nextTag()} or
+ * {@link #beginList()}, or {@link #skip(byte) skip} it entirely.
+ * <p>
+ * Tag names are read into a reused buffer and only decoded when {@link #name()} is called, so callers looking for known
+ * tags should match them with {@link #nameIs(String)}, which does not allocate.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+final class NBTStreamReader implements Closeable {
+
+  static final byte TAG_END = 0;
+  static final byte TAG_BYTE = 1;
+  static final byte TAG_SHORT = 2;
+  static final byte TAG_INT = 3;
+  static final byte TAG_LONG = 4;
+  static final byte TAG_FLOAT = 5;
+  static final byte TAG_DOUBLE = 6;
+  static final byte TAG_BYTE_ARRAY = 7;
+  static final byte TAG_STRING = 8;
+  static final byte TAG_LIST = 9;
+  static final byte TAG_COMPOUND = 10;
+  static final byte TAG_INT_ARRAY = 11;
+
+  private final DataInputStream in;
+
+  // The raw bytes of the last tag name, and the name decoded from them once it has been asked for.
+  private byte[] nameBytes = new byte[32];
+  private int nameLength = -1;
+  private String name;
+  private byte listType;
+
+  /**
+   * Creates a reader over the given stream of uncompressed NBT data.
+   *
+   * @param in The stream to read from.
+   */
+  NBTStreamReader(InputStream in) {
+    this.in = in instanceof DataInputStream ? (DataInputStream) in : new DataInputStream(in);
+  }
+
+  /**
+   * Reads the header of the root tag, which must be a compound.
+   *
+   * @throws IOException If the root tag is not a compound, or on read errors.
+   */
+  void beginRoot() throws IOException {
+    if (nextTag() != TAG_COMPOUND)
+      throw new IOException("Root tag must be a compound");
+  }
+
+  /**
+   * Reads the header of the next tag in the current compound.
+   *
+   * @return The type of the tag, or {@link #TAG_END} if the compound has ended.
+   * @throws IOException On read errors.
+   */
+  byte nextTag() throws IOException {
+    byte type = in.readByte();
+    name = null;
+    if (type == TAG_END) {
+      nameLength = -1;
+      return type;
+    }
+
+    nameLength = in.readUnsignedShort();
+    if (nameLength > nameBytes.length) nameBytes = new byte[Math.max(nameLength, nameBytes.length * 2)];
+    in.readFully(nameBytes, 0, nameLength);
+    return type;
+  }
+
+  /**
+   * Checks the name of the tag last read with {@link #nextTag()} without decoding it.
+   *
+   * @param expected The expected name, which must be ASCII.
+   *
+   * @return True if the tag has the expected name.
+   */
+  boolean nameIs(String expected) {
+    if (nameLength != expected.length()) return false;
+    for (int i = 0; i < nameLength; i++)
+      if (nameBytes[i] != expected.charAt(i)) return false;
+    return true;
+  }
+
+  /**
+   * @return The name of the tag last read with {@link #nextTag()}, or null if it was the end of a compound.
+   * @throws IOException If the name is not valid modified UTF-8.
+   */
+  String name() throws IOException {
+    if (name == null && nameLength >= 0) name = decodeName();
+    return name;
+  }
+
+  private String decodeName() throws IOException {
+    // Modified UTF-8 only differs from ASCII in bytes with the high bit set.
+    boolean ascii = true;
+    for (int i = 0; i < nameLength && ascii; i++)
+      ascii = nameBytes[i] >= 0;
+    if (ascii) return new String(nameBytes, 0, nameLength, StandardCharsets.US_ASCII);
+
+    byte[] utf = new byte[nameLength + 2];
+    utf[0] = (byte) (nameLength >>> 8);
+    utf[1] = (byte) nameLength;
+    System.arraycopy(nameBytes, 0, utf, 2, nameLength);
+    return DataInputStream.readUTF(new DataInputStream(new ByteArrayInputStream(utf)));
+  }
+
+  /**
+   * Reads the header of a list tag.
+   *
+   * @return The number of elements in the list.
+   * @throws IOException On read errors.
+   * @see #listType()
+   */
+  int beginList() throws IOException {
+    listType = in.readByte();
+    int length = in.readInt();
+    if (length < 0) throw new IOException("Negative list length " + length);
+    return length;
+  }
+
+  /**
+   * @return The element type of the list last opened with {@link #beginList()}.
+   */
+  byte listType() {
+    return listType;
+  }
+
+  byte readByte() throws IOException {
+    return in.readByte();
+  }
+
+  short readShort() throws IOException {
+    return in.readShort();
+  }
+
+  int readInt() throws IOException {
+    return in.readInt();
+  }
+
+  long readLong() throws IOException {
+    return in.readLong();
+  }
+
+  String readString() throws IOException {
+    return in.readUTF();
+  }
+
+  /**
+   * Reads a tag payload as an int, widening smaller integer types. Vanilla is not always consistent about which
+   * integer type it writes.
+   *
+   * @param type The type of the tag.
+   *
+   * @return The value.
+   * @throws IOException If the tag is not an integer type, or on read errors.
+   */
+  int readInt(byte type) throws IOException {
+    switch (type) {
+      case TAG_BYTE:
+        return in.readByte();
+      case TAG_SHORT:
+        return in.readShort();
+      case TAG_INT:
+        return in.readInt();
+      case TAG_LONG:
+        return (int) in.readLong();
+      default:
+        throw new IOException("Expected an integer tag but found type " + type);
+    }
+  }
+
+  /**
+   * Skips over the payload of a tag of the given type, including any nested tags.
+   *
+   * @param type The type of the tag.
+   *
+   * @throws IOException If the type is unknown, or on read errors.
+   */
+  void skip(byte type) throws IOException {
+    switch (type) {
+      case TAG_END:
+        break;
+      case TAG_BYTE:
+        skipBytes(1);
+        break;
+      case TAG_SHORT:
+        skipBytes(2);
+        break;
+      case TAG_INT:
+      case TAG_FLOAT:
+        skipBytes(4);
+        break;
+      case TAG_LONG:
+      case TAG_DOUBLE:
+        skipBytes(8);
+        break;
+      case TAG_BYTE_ARRAY:
+        skipBytes(in.readInt());
+        break;
+      case TAG_INT_ARRAY:
+        skipBytes(in.readInt() * 4L);
+        break;
+      case TAG_STRING:
+        skipBytes(in.readUnsignedShort());
+        break;
+      case TAG_LIST:
+        byte elementType = in.readByte();
+        int length = in.readInt();
+        for (int i = 0; i < length; i++)
+          skip(elementType);
+        break;
+      case TAG_COMPOUND:
+        byte next;
+        while ((next = in.readByte()) != TAG_END) {
+          skipBytes(in.readUnsignedShort());
+          skip(next);
+        }
+        break;
+      default:
+        throw new IOException("Unknown tag type " + type);
+    }
+  }
+
+  private void skipBytes(long count) throws IOException {
+    while (count > 0) {
+      int skipped = in.skipBytes((int) Math.min(count, Integer.MAX_VALUE));
+      if (skipped <= 0) {
+        in.readByte();
+        skipped = 1;
+      }
+      count -= skipped;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+}
@@ -0,0 +1,116 @@
+package io.vevox.vx.structures;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static io.vevox.vx.structures.NBTStreamReader.*;
+
+/**
+ * A writer for uncompressed NBT data that encodes tags straight to a stream instead of building a tree of tag
+ * objects first.
+ * <p>
+ * Named tags are written with the methods that take a name. Elements of a list are written with the methods that
+ * do not, after {@link #beginList(String, byte, int)} has declared their type and count. Compounds, whether named or
+ * list elements, are closed with {@link #endCompound()}.
+ *
+ * @author Matthew Struble
+ * @see NBTStreamReader
+ * @since 0.1.0
+ */
+final class NBTStreamWriter implements Closeable {
+
+  private final DataOutputStream out;
+
+  /**
+   * Creates a writer to the given stream.
+   *
+   * @param out The stream to write uncompressed NBT data to.
+   */
+  NBTStreamWriter(OutputStream out) {
+    this.out = out instanceof DataOutputStream ? (DataOutputStream) out : new DataOutputStream(out);
+  }
+
+  /**
+   * Writes the header of the unnamed root compound.
+   *
+   * @throws IOException On write errors.
+   */
+  void beginRoot() throws IOException {
+    beginCompound("");
+  }
+
+  /**
+   * Writes the header of a named compound.
+   *
+   * @param name The name of the compound.
+   *
+   * @throws IOException On write errors.
+   */
+  void beginCompound(String name) throws IOException {
+    header(TAG_COMPOUND, name);
+  }
+
+  /**
+   * Closes the current compound.
+   *
+   * @throws IOException On write errors.
+   */
+  void endCompound() throws IOException {
+    out.writeByte(TAG_END);
+  }
+
+  /**
+   * Writes the header of a named list. Exactly <code>length</code> elements of the given type must follow.
+   *
+   * @param name   The name of the list.
+   * @param type   The element type, ignored if the list is empty.
+   * @param length The number of elements.
+   *
+   * @throws IOException On write errors.
+   */
+  void beginList(String name, byte type, int length) throws IOException {
+    header(TAG_LIST, name);
+    out.writeByte(length == 0 ? TAG_END : type);
+    out.writeInt(length);
+  }
+
+  void writeString(String name, String value) throws IOException {
+    header(TAG_STRING, name);
+    out.writeUTF(value);
+  }
+
+  void writeInt(String name, int value) throws IOException {
+    header(TAG_INT, name);
+    out.writeInt(value);
+  }
+
+  /**
+   * Writes a named list of three ints, as used for positions and sizes.
+   *
+   * @param name The name of the list.
+   * @param x    The first element.
+   * @param y    The second element.
+   * @param z    The third element.
+   *
+   * @throws IOException On write errors.
+   */
+  void writeIntList(String name, int x, int y, int z) throws IOException {
+    beginList(name, TAG_INT, 3);
+    out.writeInt(x);
+    out.writeInt(y);
+    out.writeInt(z);
+  }
+
+  private void header(byte type, String name) throws IOException {
+    out.writeByte(type);
+    out.writeUTF(name);
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+
+}
@@ -0,0 +1,214 @@
+package io.vevox.vx.structures;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.vevox.vx.structures.NBTStreamReader.*;
+
+/**
+ * Decodes a compressed vanilla structure file straight into a {@link BlockStorage} and palette as it is read, without
+ * building an intermediate tag tree.
+ * <p>
+ * Vanilla does not write the tags of a compound in any fixed order, so if the <code>blocks</code> list is read before
+ * the <code>size</code> of the structure is known, its positions and states are held in a flat int buffer until the
+ * storage can be created. Files written by {@link NBTStructureWriter} always have their size first, so only foreign
+ * files take that path.
+ * <p>
+ * A reader can also be limited to a region of the structure, in which case only the blocks inside that region are
+ * kept and the resulting storage is only as large as the region.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+final class NBTStructureReader {
+
+  String author = "";
+  int version;
+  int sizeX, sizeY, sizeZ;
+  BlockStorage blocks;
+  final List<PaletteEntry> palette = new ArrayList<>();
+
+  // The region to keep, relative to the structure.
+  private final int fromX, fromY, fromZ, regionX, regionY, regionZ;
+
+  // Blocks read before the size was known, as x, y, z, state quadruples.
+  private int[] pending;
+  private int pendingLength;
+  private int maxState = BlockStorage.EMPTY;
+
+  /**
+   * Creates a reader for a whole structure.
+   */
+  NBTStructureReader() {
+    this(0, 0, 0, -1, -1, -1);
+  }
+
+  /**
+   * Creates a reader for the given region of a structure. The storage it reads into has the size of the region, and
+   * positions in it are relative to the region.
+   *
+   * @param fromX   The minimum X position of the region.
+   * @param fromY   The minimum Y position of the region.
+   * @param fromZ   The minimum Z position of the region.
+   * @param regionX The size of the region along the X axis, or -1 for the whole structure.
+   * @param regionY The size of the region along the Y axis, or -1 for the whole structure.
+   * @param regionZ The size of the region along the Z axis, or -1 for the whole structure.
+   */
+  NBTStructureReader(int fromX, int fromY, int fromZ, int regionX, int regionY, int regionZ) {
+    this.fromX = fromX;
+    this.fromY = fromY;
+    this.fromZ = fromZ;
+    this.regionX = regionX;
+    this.regionY = regionY;
+    this.regionZ = regionZ;
+  }
+
+  /**
+   * Reads a compressed structure from the given stream, closing it afterwards. The codec it was compressed with is
+   * detected from its first bytes.
+   *
+   * @param input The stream to read from.
+   *
+   * @return This reader, with the structure's fields filled.
+   * @throws IOException              If the data is not a valid structure, or on read errors.
+   * @throws IllegalArgumentException If this reader has a region that does not lie within the structure.
+   */
+  NBTStructureReader read(InputStream input) throws IOException {
+    try (NBTStreamReader nbt = new NBTStreamReader(new BufferedInputStream(CompressionCodec.detect(input)))) {
+      nbt.beginRoot();
+
+      byte type;
+      while ((type = nbt.nextTag()) != TAG_END) {
+        if (type == TAG_STRING && nbt.nameIs("author")) author = nbt.readString();
+        else if (nbt.nameIs("version")) version = nbt.readInt(type);
+        else if (type == TAG_LIST && nbt.nameIs("size")) readSize(nbt);
+        else if (type == TAG_LIST && nbt.nameIs("palette")) readPalette(nbt);
+        else if (type == TAG_LIST && nbt.nameIs("blocks")) readBlocks(nbt);
+        else nbt.skip(type);
+      }
+    }
+
+    if (blocks == null) throw new IOException("Structure has no size");
+    for (int i = 0; i < pendingLength; i += 4)
+      if (!place(pending[i], pending[i + 1], pending[i + 2], pending[i + 3]))
+        throw new IOException(String.format("Block at %d, %d, %d is outside of the structure size",
+            pending[i], pending[i + 1], pending[i + 2]));
+    pending = null;
+
+    if (maxState >= palette.size())
+      throw new IOException(String.format("Block state %d is not in the palette of %d states",
+          maxState, palette.size()));
+    return this;
+  }
+
+  private void readSize(NBTStreamReader nbt) throws IOException {
+    int length = nbt.beginList();
+    byte type = nbt.listType();
+    if (length != 3) throw new IOException("Structure size must have three elements");
+
+    sizeX = nbt.readInt(type);
+    sizeY = nbt.readInt(type);
+    sizeZ = nbt.readInt(type);
+    if (sizeX <= 0 || sizeY <= 0 || sizeZ <= 0)
+      throw new IOException(String.format("Invalid structure size %d, %d, %d", sizeX, sizeY, sizeZ));
+    if (regionX < 0) blocks = BlockStorage.builder(sizeX, sizeY, sizeZ);
+    else {
+      if (fromX + regionX > sizeX || fromY + regionY > sizeY || fromZ + regionZ > sizeZ)
+        throw new IllegalArgumentException(String.format("Region is not within the structure size %d, %d, %d",
+            sizeX, sizeY, sizeZ));
+      blocks = BlockStorage.builder(regionX, regionY, regionZ);
+    }
+  }
+
+  private void readPalette(NBTStreamReader nbt) throws IOException {
+    int length = nbt.beginList();
+    byte listType = nbt.listType();
+    for (int i = 0; i < length; i++) {
+      if (listType != TAG_COMPOUND) throw new IOException("Palette entries must be compounds");
+
+      String name = "";
+      Map<String, String> properties = new HashMap<>();
+
+      byte type;
+      while ((type = nbt.nextTag()) != TAG_END) {
+        if (type == TAG_STRING && nbt.nameIs("Name")) name = nbt.readString();
+        else if (type == TAG_COMPOUND && nbt.nameIs("Properties")) {
+          byte propertyType;
+          while ((propertyType = nbt.nextTag()) != TAG_END) {
+            if (propertyType == TAG_STRING) properties.put(nbt.name(), nbt.readString());
+            else nbt.skip(propertyType);
+          }
+        } else nbt.skip(type);
+      }
+
+      palette.add(PaletteEntry.read(name, properties));
+    }
+  }
+
+  private void readBlocks(NBTStreamReader nbt) throws IOException {
+    int length = nbt.beginList();
+    if (length > 0 && nbt.listType() != TAG_COMPOUND) throw new IOException("Blocks must be compounds");
+
+    for (int i = 0; i < length; i++) {
+      int state = 0, x = 0, y = 0, z = 0;
+      boolean hasPos = false;
+
+      byte type;
+      while ((type = nbt.nextTag()) != TAG_END) {
+        if (nbt.nameIs("state")) state = nbt.readInt(type);
+        else if (type == TAG_LIST && nbt.nameIs("pos")) {
+          if (nbt.beginList() != 3) throw new IOException("Block position must have three elements");
+          byte posType = nbt.listType();
+          x = nbt.readInt(posType);
+          y = nbt.readInt(posType);
+          z = nbt.readInt(posType);
+          hasPos = true;
+        } else nbt.skip(type);
+      }
+
+      if (!hasPos) throw new IOException("Block has no position");
+      if (state < 0) throw new IOException("Negative block state " + state);
+      maxState = Math.max(maxState, state);
+
+      if (x < 0 || y < 0 || z < 0 || (blocks != null && (x >= sizeX || y >= sizeY || z >= sizeZ)))
+        throw new IOException(String.format("Block at %d, %d, %d is outside of the structure size", x, y, z));
+
+      if (blocks == null) {
+        if (inRegion(x, y, z)) buffer(x, y, z, state);
+      } else place(x, y, z, state);
+    }
+  }
+
+  private void buffer(int x, int y, int z, int state) {
+    if (pending == null) pending = new int[256];
+    else if (pendingLength + 4 > pending.length) pending = Arrays.copyOf(pending, pending.length * 2);
+
+    pending[pendingLength++] = x;
+    pending[pendingLength++] = y;
+    pending[pendingLength++] = z;
+    pending[pendingLength++] = state;
+  }
+
+  private boolean inRegion(int x, int y, int z) {
+    return regionX < 0 || (x >= fromX && y >= fromY && z >= fromZ
+        && x < fromX + regionX && y < fromY + regionY && z < fromZ + regionZ);
+  }
+
+  /**
+   * Places a block if it lies within the region being read.
+   *
+   * @return False if the block lies outside of the structure size.
+   */
+  private boolean place(int x, int y, int z, int state) {
+    if (x >= sizeX || y >= sizeY || z >= sizeZ) return false;
+    if (inRegion(x, y, z)) blocks.set(x - fromX, y - fromY, z - fromZ, state);
+    return true;
+  }
+
+}
@@ -0,0 +1,83 @@
+package io.vevox.vx.structures;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+import static io.vevox.vx.structures.NBTStreamReader.*;
+
+/**
+ * Encodes a structure as a compressed vanilla structure file straight from its {@link BlockStorage} and palette, using
+ * a constant amount of memory no matter the size of the structure.
+ * <p>
+ * The output uses the same tags as the vanilla structure block, so files written here can be loaded by it as long as
+ * they are within its size limits and written with {@link CompressionCodec#GZIP}. The <code>size</code> and
+ * <code>palette</code> are written before the <code>blocks</code>, so that {@link NBTStructureReader} can place each
+ * block as it is read instead of buffering them until the size is known.
+ *
+ * @author Matthew Struble
+ * @see NBTStructureReader
+ * @since 0.1.0
+ */
+final class NBTStructureWriter {
+
+  private NBTStructureWriter() {
+  }
+
+  /**
+   * Writes a structure to the given stream, closing it afterwards.
+   *
+   * @param author  The author of the structure.
+   * @param version The version of the structure.
+   * @param blocks  The blocks of the structure.
+   * @param palette The palette of the structure.
+   * @param output  The stream to write to.
+   * @param codec   The codec to compress with.
+   *
+   * @throws IOException On write errors.
+   */
+  static void write(String author, int version, BlockStorage blocks, List<PaletteEntry> palette,
+                    OutputStream output, CompressionCodec codec) throws IOException {
+    try (NBTStreamWriter nbt = new NBTStreamWriter(new BufferedOutputStream(codec.compress(output)))) {
+      nbt.beginRoot();
+      nbt.writeIntList("size", blocks.sizeX, blocks.sizeY, blocks.sizeZ);
+
+      nbt.beginList("palette", TAG_COMPOUND, palette.size());
+      for (PaletteEntry item : palette) {
+        nbt.writeString("Name", item.name);
+        if (!item.properties.isEmpty()) {
+          nbt.beginCompound("Properties");
+          for (Map.Entry<String, String> property : item.properties.entrySet())
+            nbt.writeString(property.getKey(), property.getValue());
+          nbt.endCompound();
+        }
+        nbt.endCompound();
+      }
+
+      int count = 0;
+      for (int i = 0; i < blocks.volume(); i++)
+        if (blocks.get(i) != BlockStorage.EMPTY) count++;
+
+      nbt.beginList("blocks", TAG_COMPOUND, count);
+      for (int y = 0; y < blocks.sizeY; y++)
+        for (int z = 0; z < blocks.sizeZ; z++)
+          for (int x = 0; x < blocks.sizeX; x++) {
+            int state = blocks.get(x, y, z);
+            if (state == BlockStorage.EMPTY) continue;
+
+            nbt.writeIntList("pos", x, y, z);
+            nbt.writeInt("state", state);
+            nbt.endCompound();
+          }
+
+      nbt.beginList("entities", TAG_COMPOUND, 0);
+      nbt.writeString("author", author);
+      nbt.writeInt("version", version);
+
+      nbt.endCompound();
+    }
+  }
+
+}
@@ -0,0 +1,117 @@
+package io.vevox.vx.structures;
+
+import com.google.common.base.Objects;
+
+/**
+ * One of the eight ways a structure can be turned about its Y axis and mirrored, as an integer matrix over the X and Z
+ * axes.
+ * <p>
+ * A position <code>(x, z)</code> maps to <code>(a * x + b * z, c * x + d * z)</code>, before being shifted back into
+ * the positive range of the structure. Every coefficient is <code>-1</code>, <code>0</code> or <code>1</code>, so
+ * orientations compose exactly and their inverse is their transpose.
+ *
+ * @author Matthew Struble
+ * @see TransformedBlockStorage
+ * @since 0.1.0
+ */
+final class Orientation {
+
+  static final Orientation IDENTITY = new Orientation(1, 0, 0, 1);
+
+  /**
+   * The orientation that flips the X axis.
+   */
+  static final Orientation MIRROR_X = new Orientation(-1, 0, 0, 1);
+
+  /**
+   * The orientation that flips the Z axis.
+   */
+  static final Orientation MIRROR_Z = new Orientation(1, 0, 0, -1);
+
+  final int a, b, c, d;
+
+  private Orientation(int a, int b, int c, int d) {
+    this.a = a;
+    this.b = b;
+    this.c = c;
+    this.d = d;
+  }
+
+  /**
+   * Gets the orientation of a clockwise rotation.
+   *
+   * @param quarterTurns The number of clockwise quarter turns. May be negative, or more than a full turn.
+   *
+   * @return The orientation.
+   */
+  static Orientation rotation(int quarterTurns) {
+    switch (quarterTurns & 3) {
+      case 1:
+        return new Orientation(0, -1, 1, 0);
+      case 2:
+        return new Orientation(-1, 0, 0, -1);
+      case 3:
+        return new Orientation(0, 1, -1, 0);
+      default:
+        return IDENTITY;
+    }
+  }
+
+  /**
+   * Gets the orientation of applying this orientation, then the given one.
+   *
+   * @param next The orientation to apply after this one.
+   *
+   * @return The combined orientation.
+   */
+  Orientation then(Orientation next) {
+    return new Orientation(
+        next.a * a + next.b * c, next.a * b + next.b * d,
+        next.c * a + next.d * c, next.c * b + next.d * d);
+  }
+
+  /**
+   * @return True if this orientation swaps the X and Z axes.
+   */
+  boolean swapsAxes() {
+    return a == 0;
+  }
+
+  boolean isIdentity() {
+    return equals(IDENTITY);
+  }
+
+  /**
+   * @return True if this orientation mirrors the structure, whether or not it also rotates it.
+   */
+  boolean isMirrored() {
+    return a * d - b * c < 0;
+  }
+
+  /**
+   * Gets the rotation part of this orientation. Every orientation is either a clockwise rotation, or a flip of the X
+   * axis followed by a clockwise rotation if it {@link #isMirrored() is mirrored}; this is that rotation.
+   *
+   * @return The number of clockwise quarter turns, from <code>0</code> to <code>3</code>.
+   */
+  int quarterTurns() {
+    // Undo the X flip by negating the first column, leaving a pure rotation.
+    int a = isMirrored() ? -this.a : this.a, c = isMirrored() ? -this.c : this.c;
+    if (a == 1) return 0;
+    if (a == -1) return 2;
+    return c == 1 ? 1 : 3;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof Orientation)) return false;
+    Orientation other = (Orientation) o;
+    return a == other.a && b == other.b && c == other.c && d == other.d;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(a, b, c, d);
+  }
+
+}
@@ -0,0 +1,75 @@
+package io.vevox.vx.structures;
+
+import com.google.common.base.Objects;
+import org.apache.commons.lang3.Validate;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One block state in the palette of a structure: a namespaced block name, such as <code>minecraft:stone</code>, and
+ * the values of its block state properties.
+ *
+ * @author Matthew Struble
+ * @see StructureData
+ * @since 0.1.0
+ */
+public final class PaletteEntry {
+
+  /**
+   * The namespaced name of the block.
+   */
+  public final String name;
+
+  /**
+   * The block state properties of the block, by name. Unmodifiable.
+   */
+  public final Map<String, String> properties;
+
+  /**
+   * @param name       The namespaced name of the block.
+   * @param properties The block state properties of the block. The map is copied.
+   *
+   * @throws IllegalArgumentException If the name or properties are null.
+   */
+  public PaletteEntry(String name, Map<String, String> properties) throws IllegalArgumentException {
+    Validate.notNull(name);
+    Validate.notNull(properties);
+    this.name = name;
+    this.properties = Collections.unmodifiableMap(new HashMap<>(properties));
+  }
+
+  /**
+   * Creates an entry as read from a structure file. Like the vanilla structure block, any connections to neighbouring
+   * blocks are cleared, since the neighbours may differ wherever the structure is placed.
+   *
+   * @param name       The namespaced name of the block.
+   * @param properties The block state properties of the block.
+   *
+   * @return The entry.
+   */
+  static PaletteEntry read(String name, Map<String, String> properties) {
+    for (String side : new String[]{"north", "south", "east", "west"})
+      if (properties.containsKey(side)) properties.put(side, "false");
+    return new PaletteEntry(name, properties);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof PaletteEntry)) return false;
+    PaletteEntry other = (PaletteEntry) o;
+    return other.name.equals(name) && other.properties.equals(properties);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(name, properties);
+  }
+
+  @Override
+  public String toString() {
+    return properties.isEmpty() ? name : name + properties;
+  }
+
+}
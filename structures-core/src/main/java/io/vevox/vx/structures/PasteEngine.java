@@ -0,0 +1,207 @@
+package io.vevox.vx.structures;
+
+/**
+ * Pastes structure data into a {@link PasteTarget} one chunk section at a time.
+ * <p>
+ * Writes are grouped by chunk column and then by 16-block section, so each chunk is begun once and ended once, after
+ * its last section has been written, rather than once per block. The paste is split into work units of one section
+ * each, visited in chunk order, which allows it to be run all at once with {@link #run()} or spread out with repeated
+ * calls to {@link #step()}. Once the last unit is done, further steps {@link PasteTarget#finish() finish} the target,
+ * which may take several steps of its own, so that deferred work is spread out in the same way as the paste.
+ * <p>
+ * In {@link PasteMode#DIFF} mode, each block is first compared with the block already in the target, and is only
+ * written if they differ.
+ *
+ * @param <T> The type of block state written.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+final class PasteEngine<T> {
+
+  private final BlockStorage blocks;
+  private final T[] palette;
+  private final boolean diff;
+
+  private final PasteTarget<T> target;
+  private final int originX, originY, originZ;
+
+  // Inclusive world-space Y bounds, clamped to the world height.
+  private final int minY, maxY;
+  // Inclusive chunk and section bounds of the paste.
+  private final int minChunkX, maxChunkX, minChunkZ, maxChunkZ, minSection, maxSection;
+
+  private final int units;
+  private int unitsDone;
+
+  private int chunkX, chunkZ, section;
+  private boolean inChunk;
+  private boolean chunkChanged;
+  private boolean finished;
+
+  private int chunks, blocksWritten, blocksSkipped;
+
+  /**
+   * Prepares a paste of the given blocks with their minimum corner at the given position.
+   *
+   * @param blocks  The blocks to paste.
+   * @param palette The state of each palette index of the blocks.
+   * @param target  The target to paste into.
+   * @param originX The minimum X position to paste at.
+   * @param originY The minimum Y position to paste at.
+   * @param originZ The minimum Z position to paste at.
+   * @param mode    How blocks are written.
+   */
+  PasteEngine(BlockStorage blocks, T[] palette, PasteTarget<T> target, int originX, int originY, int originZ,
+              PasteMode mode) {
+    this.blocks = blocks;
+    this.palette = palette;
+    this.target = target;
+    diff = mode == PasteMode.DIFF;
+    this.originX = originX;
+    this.originY = originY;
+    this.originZ = originZ;
+
+    minY = Math.max(originY, 0);
+    maxY = Math.min(originY + blocks.sizeY, target.maxHeight()) - 1;
+
+    minChunkX = originX >> 4;
+    maxChunkX = (originX + blocks.sizeX - 1) >> 4;
+    minChunkZ = originZ >> 4;
+    maxChunkZ = (originZ + blocks.sizeZ - 1) >> 4;
+    minSection = minY >> 4;
+    maxSection = maxY >> 4;
+
+    units = minY > maxY ? 0 : (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1) * (maxSection - minSection + 1);
+
+    chunkX = minChunkX;
+    chunkZ = minChunkZ;
+    section = minSection;
+  }
+
+  /**
+   * @return The total number of work units (chunk sections) in this paste.
+   */
+  int units() {
+    return units;
+  }
+
+  /**
+   * @return The number of work units that have been completed.
+   */
+  int unitsDone() {
+    return unitsDone;
+  }
+
+  /**
+   * @return True if there are work units left to paste, or the target has not been finished yet.
+   */
+  boolean hasNext() {
+    return unitsDone < units || !finished;
+  }
+
+  /**
+   * Pastes the next chunk section, ending its chunk if it was the last section of the chunk. Once every section has
+   * been pasted, does the next part of finishing the target instead.
+   *
+   * @return True if a step was taken, false if the paste was already complete.
+   */
+  boolean step() {
+    if (unitsDone == units) {
+      if (finished) return false;
+      finished = !target.finish();
+      return true;
+    }
+
+    if (!inChunk) {
+      target.beginChunk(chunkX, chunkZ);
+      inChunk = true;
+      chunkChanged = false;
+    }
+    if (pasteSection()) chunkChanged = true;
+    unitsDone++;
+
+    if (++section > maxSection) {
+      section = minSection;
+      flush();
+      if (++chunkZ > maxChunkZ) {
+        chunkZ = minChunkZ;
+        chunkX++;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Ends the chunk currently being pasted, counting it if any of its blocks have been written.
+   */
+  private void flush() {
+    if (!inChunk) return;
+    target.endChunk(chunkChanged);
+    if (chunkChanged) {
+      chunks++;
+      Metrics.CHUNKS_TOUCHED.increment();
+    }
+    inChunk = false;
+  }
+
+  /**
+   * Ends the chunk currently being pasted, if any, and finishes the target all at once. This is done step by step once
+   * the paste is complete, and only needs to be called directly when a paste is abandoned part-way through. Calling it
+   * again has no effect.
+   */
+  void finish() {
+    flush();
+    while (!finished)
+      finished = !target.finish();
+  }
+
+  /**
+   * Pastes every remaining work unit.
+   *
+   * @return The result of the paste.
+   */
+  PasteResult run() {
+    long start = Metrics.PASTE.start();
+    //noinspection StatementWithEmptyBody
+    while (step()) ;
+    Metrics.PASTE.stop(start);
+    return result();
+  }
+
+  /**
+   * @return The result of the paste so far.
+   */
+  PasteResult result() {
+    return new PasteResult(chunks, blocksWritten, blocksSkipped);
+  }
+
+  private boolean pasteSection() {
+    int fromX = Math.max(chunkX << 4, originX), toX = Math.min((chunkX << 4) + 15, originX + blocks.sizeX - 1);
+    int fromZ = Math.max(chunkZ << 4, originZ), toZ = Math.min((chunkZ << 4) + 15, originZ + blocks.sizeZ - 1);
+    int fromY = Math.max(section << 4, minY), toY = Math.min((section << 4) + 15, maxY);
+
+    int written = 0, skipped = 0;
+    for (int y = fromY; y <= toY; y++)
+      for (int z = fromZ; z <= toZ; z++)
+        for (int x = fromX; x <= toX; x++) {
+          int state = blocks.get(x - originX, y - originY, z - originZ);
+          if (state == BlockStorage.EMPTY) continue;
+
+          T data = palette[state];
+          if (diff && target.get(x, y, z) == data) {
+            skipped++;
+            continue;
+          }
+          target.set(x, y, z, data);
+          written++;
+        }
+
+    blocksWritten += written;
+    blocksSkipped += skipped;
+    Metrics.BLOCKS_WRITTEN.add(written);
+    Metrics.BLOCKS_SKIPPED.add(skipped);
+    return written > 0;
+  }
+
+}
@@ -0,0 +1,23 @@
+package io.vevox.vx.structures;
+
+/**
+ * How a structure is written into a world when pasted.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+public enum PasteMode {
+
+  /**
+   * Every block of the structure is written, whatever is already in the world.
+   */
+  REPLACE,
+
+  /**
+   * Each block of the structure is compared with the block already in the world, and only blocks that differ are
+   * written. Chunks in which nothing differs are not refreshed at all, which makes resetting a mostly unchanged area
+   * much cheaper than replacing it.
+   */
+  DIFF
+
+}
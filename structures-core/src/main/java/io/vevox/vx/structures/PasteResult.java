@@ -0,0 +1,44 @@
+package io.vevox.vx.structures;
+
+import com.google.common.base.Objects;
+
+/**
+ * The outcome of pasting a structure into a world.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+public final class PasteResult {
+
+  /**
+   * The number of chunks that had at least one block written and were refreshed.
+   */
+  public final int chunks;
+
+  /**
+   * The number of blocks written.
+   */
+  public final int blocks;
+
+  /**
+   * The number of blocks that were not written because the world already held the same block, when pasting in
+   * {@link PasteMode#DIFF} mode.
+   */
+  public final int skipped;
+
+  PasteResult(int chunks, int blocks, int skipped) {
+    this.chunks = chunks;
+    this.blocks = blocks;
+    this.skipped = skipped;
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+        .add("chunks", chunks)
+        .add("blocks", blocks)
+        .add("skipped", skipped)
+        .toString();
+  }
+
+}
@@ -0,0 +1,67 @@
+package io.vevox.vx.structures;
+
+/**
+ * The world a {@link PasteEngine} writes into, as seen by the engine. Adapters implement this over their server's
+ * chunks; the engine only decides which blocks to write and in what order.
+ * <p>
+ * Blocks are always read and written inside the chunk most recently begun, and every position is in world space.
+ *
+ * @param <T> The type of block state the target holds. States must be canonical instances, compared by identity.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+interface PasteTarget<T> {
+
+  /**
+   * @return The height of the world. Blocks at or above it are never written.
+   */
+  int maxHeight();
+
+  /**
+   * Begins writing into the given chunk column.
+   *
+   * @param chunkX The chunk X position.
+   * @param chunkZ The chunk Z position.
+   */
+  void beginChunk(int chunkX, int chunkZ);
+
+  /**
+   * Gets the state of the block at the given position, for {@link PasteMode#DIFF} pastes.
+   *
+   * @param x The X position.
+   * @param y The Y position.
+   * @param z The Z position.
+   *
+   * @return The state.
+   */
+  T get(int x, int y, int z);
+
+  /**
+   * Writes the block at the given position.
+   *
+   * @param x     The X position.
+   * @param y     The Y position.
+   * @param z     The Z position.
+   * @param state The state to write.
+   */
+  void set(int x, int y, int z, T state);
+
+  /**
+   * Ends writing into the chunk most recently begun.
+   *
+   * @param changed True if any block in the chunk was written, and it needs to be sent to players again.
+   */
+  void endChunk(boolean changed);
+
+  /**
+   * Does part of the work deferred until the whole paste is in place, after its last chunk has been ended. This is
+   * called once per step of the engine until it returns false, so each call should only do a bounded amount of work.
+   * It is also called when the paste is abandoned part-way through, so that deferred work is still done for the blocks
+   * that were written, and is then called until it returns false without stepping in between.
+   *
+   * @return True if there is work left, and this must be called again.
+   */
+  boolean finish();
+
+}
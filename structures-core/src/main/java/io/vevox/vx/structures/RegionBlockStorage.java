@@ -0,0 +1,60 @@
+package io.vevox.vx.structures;
+
+/**
+ * Read-only {@link BlockStorage} that views a box-shaped region of another storage. No cells are copied; every
+ * lookup is offset into the backing storage, so a region of a {@link MappedBlockStorage} only ever reads the tiles
+ * that overlap it.
+ *
+ * @author Matthew Struble
+ * @see StructureData#region(int, int, int, int, int, int)
+ * @since 0.1.0
+ */
+final class RegionBlockStorage extends BlockStorage {
+
+  private final BlockStorage backing;
+  private final int offsetX, offsetY, offsetZ;
+
+  /**
+   * Creates a view of the given region. The region must lie within the backing storage.
+   *
+   * @param backing The storage to view.
+   * @param offsetX The minimum X position of the region in the backing storage.
+   * @param offsetY The minimum Y position of the region in the backing storage.
+   * @param offsetZ The minimum Z position of the region in the backing storage.
+   * @param sizeX   The size of the region along the X axis.
+   * @param sizeY   The size of the region along the Y axis.
+   * @param sizeZ   The size of the region along the Z axis.
+   */
+  RegionBlockStorage(BlockStorage backing, int offsetX, int offsetY, int offsetZ, int sizeX, int sizeY, int sizeZ) {
+    super(sizeX, sizeY, sizeZ);
+    if (backing instanceof RegionBlockStorage) {
+      // Views of views only need to go one level deep.
+      RegionBlockStorage region = (RegionBlockStorage) backing;
+      this.backing = region.backing;
+      this.offsetX = region.offsetX + offsetX;
+      this.offsetY = region.offsetY + offsetY;
+      this.offsetZ = region.offsetZ + offsetZ;
+    } else {
+      this.backing = backing;
+      this.offsetX = offsetX;
+      this.offsetY = offsetY;
+      this.offsetZ = offsetZ;
+    }
+  }
+
+  @Override
+  long estimatedBytes() {
+    return 40 + backing.estimatedBytes();
+  }
+
+  @Override
+  int get(int x, int y, int z) {
+    return backing.get(x + offsetX, y + offsetY, z + offsetZ);
+  }
+
+  @Override
+  void set(int x, int y, int z, int state) throws UnsupportedOperationException {
+    throw new UnsupportedOperationException("Structure regions are read-only");
+  }
+
+}
@@ -0,0 +1,169 @@
+package io.vevox.vx.structures;
+
+import java.util.Arrays;
+
+/**
+ * {@link BlockStorage} for structures that are mostly a single background state, usually air.
+ * <p>
+ * The structure is divided into 16x16x16 bricks, and only bricks that hold more than one state are allocated, each as
+ * a small {@link DenseBlockStorage}. Every other brick costs a null reference and the single state it is filled with,
+ * which starts as the background. Memory grows with the number of mixed bricks rather than the structure's bounding
+ * box, and lookups stay a constant-time directory index plus a brick lookup.
+ * <p>
+ * This also makes it a cheap storage to build a large structure into cell by cell: bricks that are never written, or
+ * are only {@link #fill(int, int, int, int, int, int, int) filled} whole, are never allocated, and bricks that end up
+ * holding a single state are freed again by {@link #trim()}.
+ *
+ * @author Matthew Struble
+ * @see BlockStorage#compact(BlockStorage, int)
+ * @see BlockStorage#builder(int, int, int)
+ * @since 0.1.0
+ */
+final class SparseBlockStorage extends BlockStorage {
+
+  private final int bricksX, bricksY, bricksZ;
+  private final DenseBlockStorage[] bricks;
+  // The state of every cell of each brick that is not allocated.
+  private final int[] fills;
+
+  /**
+   * Creates a new storage of the given size with every cell set to the background.
+   *
+   * @param sizeX      The size along the X axis.
+   * @param sizeY      The size along the Y axis.
+   * @param sizeZ      The size along the Z axis.
+   * @param background The palette index of the background, or {@link #EMPTY}.
+   *
+   * @throws IllegalArgumentException If any size is zero or less, or the total volume is too large to be indexed.
+   */
+  SparseBlockStorage(int sizeX, int sizeY, int sizeZ, int background) throws IllegalArgumentException {
+    super(sizeX, sizeY, sizeZ);
+    bricksX = (sizeX + 15) >> 4;
+    bricksY = (sizeY + 15) >> 4;
+    bricksZ = (sizeZ + 15) >> 4;
+    bricks = new DenseBlockStorage[bricksX * bricksY * bricksZ];
+    fills = new int[bricks.length];
+    Arrays.fill(fills, background);
+  }
+
+  private int brick(int x, int y, int z) {
+    return ((y >> 4) * bricksZ + (z >> 4)) * bricksX + (x >> 4);
+  }
+
+  /**
+   * @return The number of bricks this storage is divided into.
+   */
+  int brickCount() {
+    return bricks.length;
+  }
+
+  @Override
+  long estimatedBytes() {
+    long bytes = 64 + bricks.length * 12L;
+    for (DenseBlockStorage brick : bricks)
+      if (brick != null) bytes += brick.estimatedBytes();
+    return bytes;
+  }
+
+  @Override
+  int get(int x, int y, int z) {
+    int index = brick(x, y, z);
+    DenseBlockStorage brick = bricks[index];
+    return brick == null ? fills[index] : brick.get(x & 15, y & 15, z & 15);
+  }
+
+  @Override
+  void set(int x, int y, int z, int state) {
+    int index = brick(x, y, z);
+    DenseBlockStorage brick = bricks[index];
+    if (brick == null) {
+      if (state == fills[index]) return;
+      brick = allocate(index);
+    }
+    brick.set(x & 15, y & 15, z & 15, state);
+  }
+
+  /**
+   * Bricks that the box covers entirely are freed and filled with the state, without being allocated.
+   */
+  @Override
+  void fill(int fromX, int fromY, int fromZ, int toX, int toY, int toZ, int state) {
+    for (int by = fromY >> 4; by <= toY >> 4; by++)
+      for (int bz = fromZ >> 4; bz <= toZ >> 4; bz++)
+        for (int bx = fromX >> 4; bx <= toX >> 4; bx++) {
+          int index = (by * bricksZ + bz) * bricksX + bx;
+          int minX = Math.max(fromX, bx << 4), maxX = Math.min(toX, (bx << 4) + 15);
+          int minY = Math.max(fromY, by << 4), maxY = Math.min(toY, (by << 4) + 15);
+          int minZ = Math.max(fromZ, bz << 4), maxZ = Math.min(toZ, (bz << 4) + 15);
+
+          if (minX == bx << 4 && maxX == Math.min((bx << 4) + 15, sizeX - 1)
+              && minY == by << 4 && maxY == Math.min((by << 4) + 15, sizeY - 1)
+              && minZ == bz << 4 && maxZ == Math.min((bz << 4) + 15, sizeZ - 1)) {
+            bricks[index] = null;
+            fills[index] = state;
+          } else if (bricks[index] != null || state != fills[index]) {
+            DenseBlockStorage brick = bricks[index] != null ? bricks[index] : allocate(index);
+            brick.fill(minX & 15, minY & 15, minZ & 15, maxX & 15, maxY & 15, maxZ & 15, state);
+          }
+        }
+  }
+
+  private DenseBlockStorage allocate(int index) {
+    DenseBlockStorage brick = bricks[index] = new DenseBlockStorage(16, 16, 16);
+    if (fills[index] != EMPTY) brick.fill(0, 0, 0, 15, 15, 15, fills[index]);
+    return brick;
+  }
+
+  /**
+   * Frees every allocated brick whose cells all hold the same state, filling it with that state instead.
+   *
+   * @return The number of bricks that are still allocated.
+   */
+  int trim() {
+    int allocated = 0;
+    for (int by = 0, index = 0; by < bricksY; by++)
+      for (int bz = 0; bz < bricksZ; bz++)
+        for (int bx = 0; bx < bricksX; bx++, index++) {
+          DenseBlockStorage brick = bricks[index];
+          if (brick == null) continue;
+
+          // Cells of edge bricks that lie outside of the storage are never written, so they are not compared.
+          int state = brick.get(0, 0, 0);
+          if (brick.isUniform(0, 0, 0, Math.min(15, sizeX - 1 - (bx << 4)), Math.min(15, sizeY - 1 - (by << 4)),
+              Math.min(15, sizeZ - 1 - (bz << 4)), state)) {
+            bricks[index] = null;
+            fills[index] = state;
+          } else allocated++;
+        }
+    return allocated;
+  }
+
+  /**
+   * Copies the cells of this storage into a {@link DenseBlockStorage}, for storages that have too many bricks
+   * allocated to be worth keeping sparse.
+   *
+   * @return The dense copy.
+   */
+  DenseBlockStorage toDense() {
+    DenseBlockStorage dense = new DenseBlockStorage(sizeX, sizeY, sizeZ);
+    for (int by = 0, index = 0; by < bricksY; by++)
+      for (int bz = 0; bz < bricksZ; bz++)
+        for (int bx = 0; bx < bricksX; bx++, index++) {
+          int fromX = bx << 4, toX = Math.min(fromX + 15, sizeX - 1);
+          int fromY = by << 4, toY = Math.min(fromY + 15, sizeY - 1);
+          int fromZ = bz << 4, toZ = Math.min(fromZ + 15, sizeZ - 1);
+
+          DenseBlockStorage brick = bricks[index];
+          if (brick == null) {
+            if (fills[index] != EMPTY) dense.fill(fromX, fromY, fromZ, toX, toY, toZ, fills[index]);
+            continue;
+          }
+          for (int y = fromY; y <= toY; y++)
+            for (int z = fromZ; z <= toZ; z++)
+              for (int x = fromX; x <= toX; x++)
+                dense.set(x, y, z, brick.get(x & 15, y & 15, z & 15));
+        }
+    return dense;
+  }
+
+}
@@ -0,0 +1,343 @@
+package io.vevox.vx.structures;
+
+import com.google.common.base.Objects;
+import com.google.common.io.CountingInputStream;
+import com.google.common.io.CountingOutputStream;
+import org.apache.commons.lang3.Validate;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The blocks and palette of a structure, independent of any server implementation.
+ * <p>
+ * Blocks are held as palette indices in a {@link BlockStorage}, and the palette as {@link PaletteEntry} names and
+ * properties, so structure data can be read, written, viewed, rotated and mirrored without a server. Turning block
+ * states such as facing to match a rotation needs the server's block registry, so it is left to the adapter that
+ * pastes the data; rotated and mirrored data only keeps track of how its palette would need to be turned.
+ * <p>
+ * Structure data is immutable. Regions, copies and transformations are views that share the same blocks and palette.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+@SuppressWarnings("unused WeakerAccess")
+public final class StructureData {
+
+  public final String author;
+  public final int version;
+
+  public final int sizeX, sizeY, sizeZ;
+
+  final BlockStorage blocks;
+  final List<PaletteEntry> palette;
+
+  // How the blocks have been rotated and mirrored from the palette's point of view.
+  final Orientation orientation;
+
+  StructureData(String author, int version, BlockStorage blocks, List<PaletteEntry> palette) {
+    this(author, version, blocks, palette, Orientation.IDENTITY);
+  }
+
+  private StructureData(String author, int version, BlockStorage blocks, List<PaletteEntry> palette,
+                        Orientation orientation) {
+    this.author = author;
+    this.version = version;
+    this.blocks = blocks;
+    this.palette = palette;
+    this.orientation = orientation;
+    sizeX = blocks.sizeX;
+    sizeY = blocks.sizeY;
+    sizeZ = blocks.sizeZ;
+  }
+
+  /**
+   * Reads structure data from the given file. The format of the file is detected from its contents.
+   * {@link StructureFormat#VXS} files are memory-mapped rather than read, so their blocks are only read from disk as
+   * they are used.
+   *
+   * @param file The file to read from.
+   *
+   * @return The structure data.
+   * @throws java.io.FileNotFoundException If the file could not be found.
+   * @throws IOException                   General I/O read errors.
+   * @throws IllegalArgumentException      If the file is null.
+   */
+  public static StructureData read(File file) throws IOException, IllegalArgumentException {
+    Validate.notNull(file);
+    if (StructureFormat.detect(file) == StructureFormat.VXS) return map(file);
+    try (InputStream input = new FileInputStream(file)) {
+      return read(input);
+    }
+  }
+
+  /**
+   * Reads only the given region of the structure in the given file. The data has the size of the region, and its
+   * blocks are positioned relative to the region's minimum corner.
+   * <p>
+   * {@link StructureFormat#VXS} files are mapped and viewed through their tile table, so tiles outside of the region
+   * are never read. Other files are decoded as a stream, keeping only the blocks that fall inside the region.
+   *
+   * @param file  The file to read from.
+   * @param fromX The minimum X position of the region.
+   * @param fromY The minimum Y position of the region.
+   * @param fromZ The minimum Z position of the region.
+   * @param sizeX The size of the region on the X axis.
+   * @param sizeY The size of the region on the Y axis.
+   * @param sizeZ The size of the region on the Z axis.
+   *
+   * @return The structure data of the region.
+   * @throws java.io.FileNotFoundException If the file could not be found.
+   * @throws IOException                   General I/O read errors.
+   * @throws IllegalArgumentException      If the file is null, or the region is empty or does not lie within the
+   *                                       stored structure.
+   */
+  public static StructureData read(File file, int fromX, int fromY, int fromZ, int sizeX, int sizeY, int sizeZ)
+      throws IOException, IllegalArgumentException {
+    Validate.notNull(file);
+    Validate.isTrue(fromX >= 0 && fromY >= 0 && fromZ >= 0);
+    Validate.isTrue(sizeX > 0 && sizeY > 0 && sizeZ > 0);
+
+    if (StructureFormat.detect(file) == StructureFormat.VXS)
+      return map(file).region(fromX, fromY, fromZ, sizeX, sizeY, sizeZ);
+
+    try (InputStream input = new FileInputStream(file)) {
+      return decode(new NBTStructureReader(fromX, fromY, fromZ, sizeX, sizeY, sizeZ), input);
+    }
+  }
+
+  /**
+   * Reads structure data from the given stream. The {@link CompressionCodec} of the stream is detected from its first
+   * bytes.
+   *
+   * @param input The stream to read from.
+   *
+   * @return The structure data.
+   * @throws IOException              General I/O read errors.
+   * @throws IllegalArgumentException If the stream is null.
+   */
+  public static StructureData read(InputStream input) throws IOException, IllegalArgumentException {
+    Validate.notNull(input);
+    return decode(new NBTStructureReader(), input);
+  }
+
+  private static StructureData decode(NBTStructureReader reader, InputStream input) throws IOException {
+    long start = Metrics.DECODE.start();
+    CountingInputStream counted = start != Metrics.OFF ? new CountingInputStream(input) : null;
+    reader.read(counted != null ? counted : input);
+    StructureData data = new StructureData(reader.author, reader.version,
+        BlockStorage.compact(reader.blocks, reader.palette.size()), reader.palette);
+
+    if (counted != null) Metrics.BYTES_READ.add(counted.getCount());
+    Metrics.DECODE.stop(start);
+    return data;
+  }
+
+  private static StructureData map(File file) throws IOException {
+    long start = Metrics.DECODE.start();
+    StructureData data = VXSCodec.read(file);
+    if (start != Metrics.OFF) Metrics.BYTES_READ.add(file.length());
+    Metrics.DECODE.stop(start);
+    return data;
+  }
+
+  /**
+   * Gets the palette index of the block at the given position.
+   *
+   * @param x The X position.
+   * @param y The Y position.
+   * @param z The Z position.
+   *
+   * @return The palette index, or {@link BlockStorage#EMPTY} if there is no block at the position.
+   * @throws IndexOutOfBoundsException If the position is not within the structure.
+   */
+  public int getState(int x, int y, int z) throws IndexOutOfBoundsException {
+    if (!blocks.contains(x, y, z))
+      throw new IndexOutOfBoundsException(String.format(
+          "The position %d, %d, %d is not within the bounds of %d, %d, %d", x, y, z, sizeX, sizeY, sizeZ));
+    return blocks.get(x, y, z);
+  }
+
+  /**
+   * Gets the palette of this structure. Block states in the palette are as they were read or captured, and are not
+   * turned to match any rotation or mirroring of this data.
+   *
+   * @return The palette, as an unmodifiable list.
+   */
+  public List<PaletteEntry> getPalette() {
+    return Collections.unmodifiableList(palette);
+  }
+
+  /**
+   * Returns a view of the given region of this data. The view has the size of the region, and its blocks are
+   * positioned relative to the region's minimum corner.
+   *
+   * @param fromX The minimum X position of the region.
+   * @param fromY The minimum Y position of the region.
+   * @param fromZ The minimum Z position of the region.
+   * @param sizeX The size of the region on the X axis.
+   * @param sizeY The size of the region on the Y axis.
+   * @param sizeZ The size of the region on the Z axis.
+   *
+   * @return The view of the region.
+   * @throws IllegalArgumentException If the region is empty or does not lie within this data.
+   */
+  public StructureData region(int fromX, int fromY, int fromZ, int sizeX, int sizeY, int sizeZ)
+      throws IllegalArgumentException {
+    Validate.isTrue(sizeX > 0 && sizeY > 0 && sizeZ > 0);
+    Validate.isTrue(blocks.contains(fromX, fromY, fromZ)
+            && blocks.contains(fromX + sizeX - 1, fromY + sizeY - 1, fromZ + sizeZ - 1),
+        "Region is not within the structure");
+    return new StructureData(author, version,
+        new RegionBlockStorage(blocks, fromX, fromY, fromZ, sizeX, sizeY, sizeZ), palette, orientation);
+  }
+
+  /**
+   * Copies this data with the given author and version. No blocks are copied, as neither copy can be modified.
+   *
+   * @param author  The new author.
+   * @param version The new version.
+   *
+   * @return The copy.
+   * @throws IllegalArgumentException If the author is null.
+   */
+  public StructureData copy(String author, int version) throws IllegalArgumentException {
+    Validate.notNull(author);
+    return new StructureData(author, version, blocks, palette, orientation);
+  }
+
+  /**
+   * Returns a view of this data rotated clockwise about its Y axis.
+   *
+   * @param quarterTurns The number of clockwise quarter turns. May be negative.
+   *
+   * @return The rotated view.
+   */
+  public StructureData rotated(int quarterTurns) {
+    return transformed(Orientation.rotation(quarterTurns));
+  }
+
+  /**
+   * @return A view of this data with its X axis flipped.
+   */
+  public StructureData mirroredX() {
+    return transformed(Orientation.MIRROR_X);
+  }
+
+  /**
+   * @return A view of this data with its Z axis flipped.
+   */
+  public StructureData mirroredZ() {
+    return transformed(Orientation.MIRROR_Z);
+  }
+
+  StructureData transformed(Orientation orientation) {
+    return new StructureData(author, version, TransformedBlockStorage.of(blocks, orientation), palette,
+        this.orientation.then(orientation));
+  }
+
+  /**
+   * Returns this data with its palette replaced by one that is already turned to match its blocks. Used by adapters
+   * once they have turned the block states of rotated or mirrored data.
+   *
+   * @param palette The turned palette, indexed the same as the current palette.
+   *
+   * @return The data with the new palette and no pending orientation.
+   */
+  StructureData withPalette(List<PaletteEntry> palette) {
+    Validate.isTrue(palette.size() == this.palette.size(), "Palette size does not match");
+    return new StructureData(author, version, blocks, palette, Orientation.IDENTITY);
+  }
+
+  /**
+   * Writes this data to the given stream in the {@link StructureFormat#NBT} format, compressed with the given codec.
+   * The stream is closed afterwards. Palette entries are written as they are, see {@link #getPalette()}.
+   *
+   * @param out   The stream to write to.
+   * @param codec The codec to compress with.
+   *
+   * @throws IOException              I/O write errors.
+   * @throws IllegalArgumentException If the stream or codec is null.
+   */
+  public void write(OutputStream out, CompressionCodec codec) throws IOException, IllegalArgumentException {
+    Validate.notNull(out);
+    Validate.notNull(codec);
+    long start = Metrics.ENCODE.start();
+    CountingOutputStream counted = start != Metrics.OFF ? new CountingOutputStream(out) : null;
+    NBTStructureWriter.write(author, version, blocks, palette, counted != null ? counted : out, codec);
+
+    if (counted != null) Metrics.BYTES_WRITTEN.add(counted.getCount());
+    Metrics.ENCODE.stop(start);
+  }
+
+  /**
+   * Writes this data to the given file in the given format. The data is written to a temporary file next to the target
+   * and then moved into place, so the target may be the file this data is mapped from.
+   *
+   * @param file   The file to write to.
+   * @param format The format to write in.
+   * @param codec  The codec to compress {@link StructureFormat#NBT} files with.
+   *
+   * @throws IOException              I/O write errors.
+   * @throws IllegalArgumentException If the file, format or codec is null.
+   */
+  public void write(File file, StructureFormat format, CompressionCodec codec)
+      throws IOException, IllegalArgumentException {
+    Validate.notNull(file);
+    Validate.notNull(format);
+    Validate.notNull(codec);
+
+    // The temporary file is unique so that concurrent writes to the same target never write into each other. Its
+    // prefix is padded, as prefixes shorter than three characters are rejected.
+    File temp = File.createTempFile(file.getName() + "-vxs-", ".tmp", file.getAbsoluteFile().getParentFile());
+    try {
+      switch (format) {
+        case VXS:
+          long start = Metrics.ENCODE.start();
+          VXSCodec.write(author, version, blocks, palette, new FileOutputStream(temp));
+          if (start != Metrics.OFF) Metrics.BYTES_WRITTEN.add(temp.length());
+          Metrics.ENCODE.stop(start);
+          break;
+        default:
+          write(new FileOutputStream(temp), codec);
+      }
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp.toPath());
+    }
+  }
+
+  /**
+   * Estimates how many bytes of heap this data retains: its blocks and its palette.
+   *
+   * @return The estimated size in bytes.
+   */
+  long estimatedBytes() {
+    long bytes = 64 + blocks.estimatedBytes();
+    for (PaletteEntry entry : palette) {
+      bytes += 96 + entry.name.length() * 2L;
+      for (Map.Entry<String, String> property : entry.properties.entrySet())
+        bytes += 96 + (property.getKey().length() + property.getValue().length()) * 2L;
+    }
+    return bytes;
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+        .add("author", author)
+        .add("version", version)
+        .add("size", sizeX + ", " + sizeY + ", " + sizeZ)
+        .toString();
+  }
+
+}
@@ -0,0 +1,46 @@
+package io.vevox.vx.structures;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * The file formats a {@link StructureData structure} can be saved in.
+ *
+ * @author Matthew Struble
+ * @see StructureData#write(File, StructureFormat, CompressionCodec)
+ * @since 0.1.0
+ */
+public enum StructureFormat {
+
+  /**
+   * The gzipped NBT format used by vanilla structure blocks, usually with the <code>.nbt</code> extension.
+   */
+  NBT,
+
+  /**
+   * A fixed-layout binary format, usually with the <code>.vxs</code> extension. Blocks are stored as 16x16x16 tiles of
+   * bit-packed palette indices, and files are memory-mapped when loaded, so opening even very large structures is
+   * near-instant and only the parts of the file that are actually read are paged in.
+   */
+  VXS;
+
+  /**
+   * Detects the format of the given file from its first bytes.
+   *
+   * @param file The file to check.
+   *
+   * @return The format of the file. Anything that is not recognised as another format is assumed to be {@link #NBT}.
+   * @throws IOException On read errors.
+   */
+  static StructureFormat detect(File file) throws IOException {
+    try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+      return in.readInt() == VXSCodec.MAGIC ? VXS : NBT;
+    } catch (EOFException e) {
+      return NBT;
+    }
+  }
+
+}
@@ -0,0 +1,67 @@
+package io.vevox.vx.structures;
+
+/**
+ * Read-only {@link BlockStorage} that views another storage through an {@link Orientation}. No cells are copied;
+ * each lookup maps its position back into the source storage with a few integer operations.
+ *
+ * @author Matthew Struble
+ * @see StructureData#rotated(int)
+ * @see StructureData#mirroredX()
+ * @since 0.1.0
+ */
+final class TransformedBlockStorage extends BlockStorage {
+
+  final BlockStorage source;
+  final Orientation orientation;
+
+  // The inverse orientation, mapping view positions back to source positions.
+  private final int ia, ib, ic, id, offsetX, offsetZ;
+
+  private TransformedBlockStorage(BlockStorage source, Orientation orientation) {
+    super(orientation.swapsAxes() ? source.sizeZ : source.sizeX, source.sizeY,
+        orientation.swapsAxes() ? source.sizeX : source.sizeZ);
+    this.source = source;
+    this.orientation = orientation;
+
+    ia = orientation.a;
+    ib = orientation.c;
+    ic = orientation.b;
+    id = orientation.d;
+    offsetX = (ia < 0 ? sizeX - 1 : 0) + (ib < 0 ? sizeZ - 1 : 0);
+    offsetZ = (ic < 0 ? sizeX - 1 : 0) + (id < 0 ? sizeZ - 1 : 0);
+  }
+
+  /**
+   * Views the given storage through the given orientation. Orientations of already transformed storages are combined
+   * so that views never nest.
+   *
+   * @param storage     The storage to view.
+   * @param orientation The orientation to view it through.
+   *
+   * @return The view, or the source storage if the combined orientation is the identity.
+   */
+  static BlockStorage of(BlockStorage storage, Orientation orientation) {
+    if (storage instanceof TransformedBlockStorage) {
+      TransformedBlockStorage transformed = (TransformedBlockStorage) storage;
+      storage = transformed.source;
+      orientation = transformed.orientation.then(orientation);
+    }
+    return orientation.isIdentity() ? storage : new TransformedBlockStorage(storage, orientation);
+  }
+
+  @Override
+  long estimatedBytes() {
+    return 56 + source.estimatedBytes();
+  }
+
+  @Override
+  int get(int x, int y, int z) {
+    return source.get(ia * x + ib * z + offsetX, y, ic * x + id * z + offsetZ);
+  }
+
+  @Override
+  void set(int x, int y, int z, int state) throws UnsupportedOperationException {
+    throw new UnsupportedOperationException("Transformed structures are read-only");
+  }
+
+}
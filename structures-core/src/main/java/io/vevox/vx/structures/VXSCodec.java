@@ -0,0 +1,234 @@
+package io.vevox.vx.structures;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the <code>.vxs</code> structure format.
+ * <p>
+ * All values are big-endian. A file starts with a header holding {@link #MAGIC}, the format version, the structure
+ * size, version and author, followed by the palette as a count and then the name and properties of each entry. After
+ * padding to a multiple of eight bytes comes the tile table, with the absolute file offset of each 16x16x16 tile of
+ * the structure, in Y, Z, X tile order.
+ * <p>
+ * Each tile starts with an int holding the number of bits per cell. If that is zero, every cell in the tile has the
+ * same value, stored in the int that follows. Otherwise, after an unused int, the tile's 4096 cells are packed in Y, Z,
+ * X order into longs of <code>64 / bits</code> cells each, with no cell spanning two longs. Cell values are palette
+ * indices plus one, leaving zero for {@link BlockStorage#EMPTY}.
+ * <p>
+ * Opening a file only reads its header and palette, and checks that the tile table lies within the file. Each tile is
+ * checked by {@link MappedBlockStorage} the first time it is read instead: it must lie within the file and use at most
+ * as many bits as the palette needs, and every value read from it must be in the palette. That keeps opening a file
+ * and reading a region of it from touching any tile that is not used, at the cost of a corrupt tile only being found
+ * when a block in it is read, as an {@link java.io.UncheckedIOException}.
+ *
+ * @author Matthew Struble
+ * @see StructureFormat#VXS
+ * @since 0.1.0
+ */
+final class VXSCodec {
+
+  /**
+   * The first four bytes of every <code>.vxs</code> file, <code>VXS\0</code>.
+   */
+  static final int MAGIC = 0x56585300;
+  static final int FORMAT_VERSION = 1;
+
+  static final int TILE_HEADER = 8;
+  private static final int TILE_CELLS = 4096;
+
+  private VXSCodec() {
+  }
+
+  static int tiles(int size) {
+    return (size + 15) >> 4;
+  }
+
+  static int cell(int x, int y, int z) {
+    return (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+  }
+
+  /**
+   * Memory-maps a structure from the given file. The returned data reads its blocks from the mapping on demand.
+   *
+   * @param file The file to map.
+   *
+   * @return The structure.
+   * @throws IOException If the file is not a valid <code>.vxs</code> file, is too large to map, or on read errors.
+   */
+  static StructureData read(File file) throws IOException {
+    ByteBuffer buffer;
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+      if (channel.size() > Integer.MAX_VALUE) throw new IOException("Structure file is too large to map");
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    try {
+      if (buffer.getInt() != MAGIC) throw new IOException("Not a vxs structure file");
+      int format = buffer.getInt();
+      if (format != FORMAT_VERSION) throw new IOException("Unsupported vxs format version " + format);
+
+      int sizeX = buffer.getInt(), sizeY = buffer.getInt(), sizeZ = buffer.getInt();
+      if (sizeX <= 0 || sizeY <= 0 || sizeZ <= 0)
+        throw new IOException(String.format("Invalid structure size %d, %d, %d", sizeX, sizeY, sizeZ));
+      int version = buffer.getInt();
+      String author = readString(buffer);
+
+      int paletteSize = buffer.getInt();
+      if (paletteSize < 0) throw new IOException("Negative palette size " + paletteSize);
+      // Every entry takes at least four bytes, which keeps a corrupt size from allocating a huge list.
+      if (paletteSize > buffer.remaining() / 4) throw new IOException("Structure file is truncated");
+      List<PaletteEntry> palette = new ArrayList<>(paletteSize);
+      for (int i = 0; i < paletteSize; i++) {
+        String name = readString(buffer);
+        int propertyCount = buffer.getShort() & 0xFFFF;
+        Map<String, String> properties = new HashMap<>();
+        for (int j = 0; j < propertyCount; j++)
+          properties.put(readString(buffer), readString(buffer));
+        palette.add(PaletteEntry.read(name, properties));
+      }
+
+      int tableOffset = align(buffer.position());
+      long tileCount = (long) tiles(sizeX) * tiles(sizeY) * tiles(sizeZ);
+      if (tableOffset + tileCount * 8 > buffer.capacity()) throw new IOException("Structure file is truncated");
+
+      return new StructureData(author, version,
+          new MappedBlockStorage(buffer, tableOffset, sizeX, sizeY, sizeZ, paletteSize), palette);
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Structure file is truncated", e);
+    }
+  }
+
+  /**
+   * Writes a structure to the given stream, closing it afterwards.
+   *
+   * @param author  The author of the structure.
+   * @param version The version of the structure.
+   * @param blocks  The blocks of the structure.
+   * @param palette The palette of the structure.
+   * @param output  The stream to write to.
+   *
+   * @throws IOException On write errors.
+   */
+  static void write(String author, int version, BlockStorage blocks, List<PaletteEntry> palette,
+                    OutputStream output) throws IOException {
+    int tilesX = tiles(blocks.sizeX), tilesY = tiles(blocks.sizeY), tilesZ = tiles(blocks.sizeZ);
+    int tileCount = tilesX * tilesY * tilesZ;
+
+    // First pass: work out how many bits each tile needs, so that the tile table can be written up front.
+    int[] tileBits = new int[tileCount];
+    int[] tileValues = new int[tileCount];
+    for (int ty = 0, tile = 0; ty < tilesY; ty++)
+      for (int tz = 0; tz < tilesZ; tz++)
+        for (int tx = 0; tx < tilesX; tx++, tile++) {
+          int first = -1, max = 0;
+          boolean uniform = true;
+          for (int y = ty << 4; y < Math.min((ty << 4) + 16, blocks.sizeY); y++)
+            for (int z = tz << 4; z < Math.min((tz << 4) + 16, blocks.sizeZ); z++)
+              for (int x = tx << 4; x < Math.min((tx << 4) + 16, blocks.sizeX); x++) {
+                int value = blocks.get(x, y, z) + 1;
+                if (first < 0) first = value;
+                else if (value != first) uniform = false;
+                max = Math.max(max, value);
+              }
+          tileBits[tile] = uniform ? 0 : 32 - Integer.numberOfLeadingZeros(max);
+          tileValues[tile] = first;
+        }
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(blocks.sizeX);
+      out.writeInt(blocks.sizeY);
+      out.writeInt(blocks.sizeZ);
+      out.writeInt(version);
+      writeString(out, author);
+
+      out.writeInt(palette.size());
+      for (PaletteEntry item : palette) {
+        writeString(out, item.name);
+        out.writeShort(item.properties.size());
+        for (Map.Entry<String, String> property : item.properties.entrySet()) {
+          writeString(out, property.getKey());
+          writeString(out, property.getValue());
+        }
+      }
+      while (out.size() % 8 != 0) out.writeByte(0);
+
+      long offset = out.size() + tileCount * 8L;
+      for (int tile = 0; tile < tileCount; tile++) {
+        out.writeLong(offset);
+        offset += tileLength(tileBits[tile]);
+      }
+      if (offset > Integer.MAX_VALUE) throw new IOException("Structure is too large for the vxs format");
+
+      for (int ty = 0, tile = 0; ty < tilesY; ty++)
+        for (int tz = 0; tz < tilesZ; tz++)
+          for (int tx = 0; tx < tilesX; tx++, tile++) {
+            int bits = tileBits[tile];
+            out.writeInt(bits);
+            out.writeInt(bits == 0 ? tileValues[tile] : 0);
+            if (bits > 0) writeTile(out, blocks, tx << 4, ty << 4, tz << 4, bits);
+          }
+    }
+  }
+
+  private static void writeTile(DataOutputStream out, BlockStorage blocks, int tileX, int tileY, int tileZ, int bits)
+      throws IOException {
+    int perLong = 64 / bits;
+    long word = 0;
+    int packed = 0;
+    for (int cell = 0; cell < TILE_CELLS; cell++) {
+      int x = tileX + (cell & 15), y = tileY + (cell >> 8), z = tileZ + (cell >> 4 & 15);
+      long value = blocks.contains(x, y, z) ? blocks.get(x, y, z) + 1 : 0;
+      word |= value << (packed * bits);
+      if (++packed == perLong) {
+        out.writeLong(word);
+        word = 0;
+        packed = 0;
+      }
+    }
+    if (packed > 0) out.writeLong(word);
+  }
+
+  /**
+   * @param bits The bits per cell of a tile.
+   *
+   * @return The length of the tile in bytes, including its header.
+   */
+  static long tileLength(int bits) {
+    if (bits == 0) return TILE_HEADER;
+    int perLong = 64 / bits;
+    return TILE_HEADER + ((TILE_CELLS + perLong - 1) / perLong) * 8L;
+  }
+
+  private static int align(int offset) {
+    return (offset + 7) & ~7;
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeString(DataOutputStream out, String string) throws IOException {
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > 0xFFFF) throw new IOException("String is too long: " + string);
+    out.writeShort(bytes.length);
+    out.write(bytes);
+  }
+
+}
@@ -0,0 +1,130 @@
+package io.vevox.vx.structures;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link DenseBlockStorage} and the indexing shared by every {@link BlockStorage}.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+public class DenseBlockStorageTest {
+
+  @Test
+  public void startsEmpty() {
+    BlockStorage storage = new DenseBlockStorage(5, 6, 7);
+    assertEquals(5 * 6 * 7, storage.volume());
+    for (int index = 0; index < storage.volume(); index++)
+      assertEquals(BlockStorage.EMPTY, storage.get(index));
+  }
+
+  @Test
+  public void indexesInYZXOrder() {
+    BlockStorage storage = new DenseBlockStorage(5, 6, 7);
+    assertEquals(0, storage.index(0, 0, 0));
+    assertEquals(1, storage.index(1, 0, 0));
+    assertEquals(5, storage.index(0, 0, 1));
+    assertEquals(5 * 7, storage.index(0, 1, 0));
+    assertEquals(storage.volume() - 1, storage.index(4, 5, 6));
+  }
+
+  @Test
+  public void keepsCells() {
+    BlockStorage storage = new DenseBlockStorage(5, 6, 7);
+    for (int y = 0; y < 6; y++)
+      for (int z = 0; z < 7; z++)
+        for (int x = 0; x < 5; x++)
+          storage.set(x, y, z, storage.index(x, y, z) % 3 - 1);
+
+    for (int y = 0; y < 6; y++)
+      for (int z = 0; z < 7; z++)
+        for (int x = 0; x < 5; x++) {
+          assertEquals(storage.index(x, y, z) % 3 - 1, storage.get(x, y, z));
+          assertEquals(storage.get(x, y, z), storage.get(storage.index(x, y, z)));
+        }
+  }
+
+  @Test
+  public void containsOnlyItsBounds() {
+    BlockStorage storage = new DenseBlockStorage(5, 6, 7);
+    assertTrue(storage.contains(0, 0, 0));
+    assertTrue(storage.contains(4, 5, 6));
+    assertFalse(storage.contains(5, 0, 0));
+    assertFalse(storage.contains(0, -1, 0));
+    assertFalse(storage.contains(0, 0, 7));
+  }
+
+  @Test
+  public void keepsCellsWhenWidening() {
+    // A volume that is not a multiple of the cells per long at most widths.
+    DenseBlockStorage storage = new DenseBlockStorage(17, 9, 13);
+    int[] expected = new int[storage.volume()];
+    Arrays.fill(expected, BlockStorage.EMPTY);
+    Random random = new Random(42);
+
+    for (int bits = 1; bits <= 20; bits++) {
+      // Cells are stored as their state plus one, so this is the largest state that fits in the width.
+      int max = (1 << bits) - 2;
+      for (int i = 0; i < 500; i++) {
+        int x = random.nextInt(storage.sizeX), y = random.nextInt(storage.sizeY), z = random.nextInt(storage.sizeZ);
+        int state = random.nextInt(max + 2) - 1;
+        storage.set(x, y, z, state);
+        expected[storage.index(x, y, z)] = state;
+      }
+      storage.set(16, 8, 12, max);
+      expected[storage.index(16, 8, 12)] = max;
+
+      for (int y = 0; y < storage.sizeY; y++)
+        for (int z = 0; z < storage.sizeZ; z++)
+          for (int x = 0; x < storage.sizeX; x++)
+            assertEquals(bits + " bits", expected[storage.index(x, y, z)], storage.get(x, y, z));
+    }
+  }
+
+  @Test
+  public void fillsBoxes() {
+    DenseBlockStorage storage = new DenseBlockStorage(10, 10, 10);
+    storage.set(0, 0, 0, 1);
+    // Filling with a state that needs more bits widens the storage first.
+    storage.fill(2, 3, 4, 7, 8, 9, 1000);
+
+    for (int y = 0; y < 10; y++)
+      for (int z = 0; z < 10; z++)
+        for (int x = 0; x < 10; x++) {
+          boolean inside = x >= 2 && x <= 7 && y >= 3 && y <= 8 && z >= 4 && z <= 9;
+          int expected = inside ? 1000 : x == 0 && y == 0 && z == 0 ? 1 : BlockStorage.EMPTY;
+          assertEquals(expected, storage.get(x, y, z));
+        }
+  }
+
+  @Test
+  public void compactsSparseData() {
+    DenseBlockStorage storage = new DenseBlockStorage(32, 32, 32);
+    storage.set(1, 2, 3, 4);
+    storage.set(31, 31, 31, 0);
+
+    BlockStorage compacted = BlockStorage.compact(storage, 5);
+    for (int y = 0; y < 32; y++)
+      for (int z = 0; z < 32; z++)
+        for (int x = 0; x < 32; x++)
+          assertEquals(storage.get(x, y, z), compacted.get(x, y, z));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsEmptySizes() {
+    new DenseBlockStorage(5, 0, 7);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsVolumesTooLargeToIndex() {
+    new DenseBlockStorage(2048, 2048, 2048);
+  }
+
+}
@@ -0,0 +1,113 @@
+package io.vevox.vx.structures;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Tests for {@link LZCodec}.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+public class LZCodecTest {
+
+  @Test
+  public void roundTripsEmptyData() throws IOException {
+    assertArrayEquals(new byte[0], decompress(compress(new byte[0])));
+  }
+
+  @Test
+  public void roundTripsRepetitiveData() throws IOException {
+    // Several blocks of long runs and short repeats, with copies that overlap their own output.
+    byte[] data = new byte[LZCodec.BLOCK_SIZE * 3 + 123];
+    for (int i = 0; i < data.length; i++)
+      data[i] = (byte) (i % 4096 < 2048 ? 7 : i % 13);
+    assertArrayEquals(data, decompress(compress(data)));
+  }
+
+  @Test
+  public void roundTripsIncompressibleData() throws IOException {
+    byte[] data = new byte[LZCodec.BLOCK_SIZE + 1];
+    new Random(42).nextBytes(data);
+    assertArrayEquals(data, decompress(compress(data)));
+  }
+
+  @Test
+  public void roundTripsSingleByteWrites() throws IOException {
+    byte[] data = new byte[1000];
+    for (int i = 0; i < data.length; i++)
+      data[i] = (byte) (i / 10);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = CompressionCodec.LZ.compress(bytes)) {
+      for (byte b : data) out.write(b);
+    }
+    assertArrayEquals(data, decompress(bytes.toByteArray()));
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsTruncatedData() throws IOException {
+    byte[] compressed = compress(repetitive());
+    decompress(Arrays.copyOf(compressed, compressed.length / 2));
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsCorruptBlockLength() throws IOException {
+    byte[] compressed = compress(repetitive());
+    // The uncompressed length of the first block follows the magic.
+    compressed[4] = 0x7F;
+    decompress(compressed);
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsCorruptSequences() throws IOException {
+    byte[] compressed = compress(repetitive());
+    // Past the magic and block lengths, turn every sequence into garbage.
+    for (int i = 12; i < compressed.length; i++)
+      compressed[i] = (byte) 0xFF;
+    decompress(compressed);
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsWrongMagic() throws IOException {
+    byte[] compressed = compress(repetitive());
+    compressed[0] = 0;
+    decompress(compressed);
+  }
+
+  private static byte[] repetitive() {
+    byte[] data = new byte[10000];
+    for (int i = 0; i < data.length; i++)
+      data[i] = (byte) (i % 37);
+    return data;
+  }
+
+  private static byte[] compress(byte[] data) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = CompressionCodec.LZ.compress(bytes)) {
+      out.write(data);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static byte[] decompress(byte[] data) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (InputStream in = CompressionCodec.LZ.decompress(new ByteArrayInputStream(data))) {
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = in.read(buffer)) != -1)
+        bytes.write(buffer, 0, read);
+    }
+    return bytes.toByteArray();
+  }
+
+}
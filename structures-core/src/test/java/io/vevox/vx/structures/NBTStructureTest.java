@@ -0,0 +1,299 @@
+package io.vevox.vx.structures;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static io.vevox.vx.structures.NBTStreamReader.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for reading and writing structures in the vanilla NBT format with {@link NBTStructureWriter} and
+ * {@link NBTStructureReader}.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+public class NBTStructureTest {
+
+  @Test
+  public void readsStructures() throws IOException {
+    NBTStructureReader reader = read(nbt -> {
+      nbt.writeByte(TAG_STRING);
+      nbt.writeUTF("author");
+      nbt.writeUTF("Matthew");
+      nbt.writeByte(TAG_INT);
+      nbt.writeUTF("version");
+      nbt.writeInt(3);
+      size(nbt, 2, 3, 4);
+      palette(nbt);
+      blocks(nbt, 1, 2, 3, 1, 0, 0, 0, 0);
+    });
+
+    assertEquals("Matthew", reader.author);
+    assertEquals(3, reader.version);
+    assertEquals(2, reader.blocks.sizeX);
+    assertEquals(3, reader.blocks.sizeY);
+    assertEquals(4, reader.blocks.sizeZ);
+    assertEquals(2, reader.palette.size());
+    assertEquals("minecraft:stone", reader.palette.get(0).name);
+    assertEquals("minecraft:log", reader.palette.get(1).name);
+    assertEquals(Collections.singletonMap("axis", "y"), reader.palette.get(1).properties);
+
+    assertEquals(1, reader.blocks.get(1, 2, 3));
+    assertEquals(0, reader.blocks.get(0, 0, 0));
+    assertEquals(BlockStorage.EMPTY, reader.blocks.get(1, 0, 0));
+  }
+
+  @Test
+  public void readsBlocksBeforeTheSize() throws IOException {
+    NBTStructureReader reader = read(nbt -> {
+      blocks(nbt, 1, 2, 3, 1, 0, 0, 0, 0);
+      palette(nbt);
+      size(nbt, 2, 3, 4);
+    });
+
+    assertEquals(1, reader.blocks.get(1, 2, 3));
+    assertEquals(0, reader.blocks.get(0, 0, 0));
+  }
+
+  @Test
+  public void skipsUnknownTags() throws IOException {
+    NBTStructureReader reader = read(nbt -> {
+      nbt.writeByte(TAG_LIST);
+      nbt.writeUTF("entities");
+      nbt.writeByte(TAG_COMPOUND);
+      nbt.writeInt(1);
+      nbt.writeByte(TAG_DOUBLE);
+      nbt.writeUTF("x");
+      nbt.writeDouble(0.5);
+      nbt.writeByte(TAG_END);
+      nbt.writeByte(TAG_INT_ARRAY);
+      nbt.writeUTF("data");
+      nbt.writeInt(2);
+      nbt.writeInt(7);
+      nbt.writeInt(8);
+      size(nbt, 1, 1, 1);
+      palette(nbt);
+      blocks(nbt, 0, 0, 0, 1);
+    });
+
+    assertEquals(1, reader.blocks.get(0, 0, 0));
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsMissingSizes() throws IOException {
+    read(nbt -> {
+      palette(nbt);
+      blocks(nbt, 0, 0, 0, 1);
+    });
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsBlocksOutsideOfTheSize() throws IOException {
+    read(nbt -> {
+      size(nbt, 2, 2, 2);
+      palette(nbt);
+      blocks(nbt, 0, 2, 0, 1);
+    });
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsStatesOutsideOfThePalette() throws IOException {
+    read(nbt -> {
+      size(nbt, 2, 2, 2);
+      palette(nbt);
+      blocks(nbt, 0, 0, 0, 2);
+    });
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsTruncatedData() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream nbt = new DataOutputStream(new GZIPOutputStream(bytes))) {
+      nbt.writeByte(TAG_COMPOUND);
+      nbt.writeUTF("");
+      size(nbt, 2, 2, 2);
+      nbt.writeByte(TAG_LIST);
+      nbt.writeUTF("blocks");
+      nbt.writeByte(TAG_COMPOUND);
+      nbt.writeInt(8);
+    }
+    new NBTStructureReader().read(new ByteArrayInputStream(bytes.toByteArray()));
+  }
+
+  @Test
+  public void roundTripsStructures() throws IOException {
+    BlockStorage blocks = new DenseBlockStorage(7, 3, 12);
+    for (int y = 0; y < 3; y++)
+      for (int z = 0; z < 12; z++)
+        for (int x = 0; x < 7; x++)
+          blocks.set(x, y, z, blocks.index(x, y, z) % 4 - 1);
+    List<PaletteEntry> palette = Arrays.asList(new PaletteEntry("minecraft:stone", Collections.emptyMap()),
+        new PaletteEntry("minecraft:log", Collections.singletonMap("axis", "y")),
+        new PaletteEntry("minecraft:dirt", Collections.emptyMap()));
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    NBTStructureWriter.write("Matthew", 2, blocks, palette, bytes, CompressionCodec.GZIP);
+    NBTStructureReader reader = new NBTStructureReader().read(new ByteArrayInputStream(bytes.toByteArray()));
+
+    assertEquals("Matthew", reader.author);
+    assertEquals(2, reader.version);
+    assertEquals(3, reader.palette.size());
+    assertEquals(palette, reader.palette);
+    assertEquals(7, reader.blocks.sizeX);
+    assertEquals(3, reader.blocks.sizeY);
+    assertEquals(12, reader.blocks.sizeZ);
+    for (int index = 0; index < blocks.volume(); index++)
+      assertEquals(blocks.get(index), reader.blocks.get(index));
+  }
+
+  @Test
+  public void roundTripsEveryCodec() throws IOException {
+    StructureData data = VXSCodecTest.structure(37, 20, 18, 300);
+    for (CompressionCodec codec : Arrays.asList(CompressionCodec.GZIP, CompressionCodec.DEFLATE,
+        CompressionCodec.NONE, CompressionCodec.LZ)) {
+      StructureData read = StructureData.read(new ByteArrayInputStream(write(data, codec)));
+      assertEquals(codec.getName(), data.author, read.author);
+      assertEquals(codec.getName(), data.version, read.version);
+      assertEquals(codec.getName(), data.getPalette(), read.getPalette());
+      VXSCodecTest.assertSameBlocks(data, read, 0, 0, 0);
+    }
+  }
+
+  @Test
+  public void roundTripsTransformedData() throws IOException {
+    StructureData data = VXSCodecTest.structure(7, 3, 12, 4).rotated(1).mirroredX();
+    StructureData read = StructureData.read(new ByteArrayInputStream(write(data, CompressionCodec.GZIP)));
+    assertEquals(data.sizeX, read.sizeX);
+    assertEquals(data.sizeZ, read.sizeZ);
+    VXSCodecTest.assertSameBlocks(data, read, 0, 0, 0);
+  }
+
+  @Test
+  public void writesTheSizeFirst() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    NBTStructureWriter.write("", 1, new DenseBlockStorage(2, 2, 2), Collections.emptyList(), bytes,
+        CompressionCodec.GZIP);
+    try (NBTStreamReader nbt = new NBTStreamReader(new GZIPInputStream(
+        new ByteArrayInputStream(bytes.toByteArray())))) {
+      nbt.beginRoot();
+      assertEquals(TAG_LIST, nbt.nextTag());
+      assertTrue(nbt.nameIs("size"));
+    }
+  }
+
+  @Test
+  public void readsRegions() throws IOException {
+    NBTStructureReader reader = read(new NBTStructureReader(1, 1, 2, 1, 2, 2), nbt -> {
+      blocks(nbt, 1, 2, 3, 1, 0, 0, 0, 0, 1, 1, 2, 0);
+      palette(nbt);
+      size(nbt, 2, 3, 4);
+    });
+
+    assertEquals(1, reader.blocks.sizeX);
+    assertEquals(2, reader.blocks.sizeY);
+    assertEquals(2, reader.blocks.sizeZ);
+    assertEquals(0, reader.blocks.get(0, 0, 0));
+    assertEquals(1, reader.blocks.get(0, 1, 1));
+    assertEquals(BlockStorage.EMPTY, reader.blocks.get(0, 1, 0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsRegionsOutsideOfTheSize() throws IOException {
+    read(new NBTStructureReader(1, 1, 1, 2, 2, 2), nbt -> {
+      size(nbt, 2, 2, 2);
+      palette(nbt);
+    });
+  }
+
+  private static byte[] write(StructureData data, CompressionCodec codec) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    data.write(bytes, codec);
+    return bytes.toByteArray();
+  }
+
+  private interface Tags {
+    void write(DataOutputStream nbt) throws IOException;
+  }
+
+  private static NBTStructureReader read(Tags tags) throws IOException {
+    return read(new NBTStructureReader(), tags);
+  }
+
+  private static NBTStructureReader read(NBTStructureReader reader, Tags tags) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream nbt = new DataOutputStream(new GZIPOutputStream(bytes))) {
+      nbt.writeByte(TAG_COMPOUND);
+      nbt.writeUTF("");
+      tags.write(nbt);
+      nbt.writeByte(TAG_END);
+    }
+    return reader.read(new ByteArrayInputStream(bytes.toByteArray()));
+  }
+
+  private static void size(DataOutputStream nbt, int x, int y, int z) throws IOException {
+    nbt.writeByte(TAG_LIST);
+    nbt.writeUTF("size");
+    nbt.writeByte(TAG_INT);
+    nbt.writeInt(3);
+    nbt.writeInt(x);
+    nbt.writeInt(y);
+    nbt.writeInt(z);
+  }
+
+  // Writes a palette of minecraft:stone and minecraft:log with axis=y.
+  private static void palette(DataOutputStream nbt) throws IOException {
+    nbt.writeByte(TAG_LIST);
+    nbt.writeUTF("palette");
+    nbt.writeByte(TAG_COMPOUND);
+    nbt.writeInt(2);
+
+    nbt.writeByte(TAG_STRING);
+    nbt.writeUTF("Name");
+    nbt.writeUTF("minecraft:stone");
+    nbt.writeByte(TAG_END);
+
+    nbt.writeByte(TAG_COMPOUND);
+    nbt.writeUTF("Properties");
+    nbt.writeByte(TAG_STRING);
+    nbt.writeUTF("axis");
+    nbt.writeUTF("y");
+    nbt.writeByte(TAG_END);
+    nbt.writeByte(TAG_STRING);
+    nbt.writeUTF("Name");
+    nbt.writeUTF("minecraft:log");
+    nbt.writeByte(TAG_END);
+  }
+
+  // Writes the given blocks, as x, y, z, state quadruples.
+  private static void blocks(DataOutputStream nbt, int... blocks) throws IOException {
+    nbt.writeByte(TAG_LIST);
+    nbt.writeUTF("blocks");
+    nbt.writeByte(TAG_COMPOUND);
+    nbt.writeInt(blocks.length / 4);
+    for (int i = 0; i < blocks.length; i += 4) {
+      nbt.writeByte(TAG_LIST);
+      nbt.writeUTF("pos");
+      nbt.writeByte(TAG_INT);
+      nbt.writeInt(3);
+      nbt.writeInt(blocks[i]);
+      nbt.writeInt(blocks[i + 1]);
+      nbt.writeInt(blocks[i + 2]);
+      nbt.writeByte(TAG_INT);
+      nbt.writeUTF("state");
+      nbt.writeInt(blocks[i + 3]);
+      nbt.writeByte(TAG_END);
+    }
+  }
+
+}
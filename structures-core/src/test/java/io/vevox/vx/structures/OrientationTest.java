@@ -0,0 +1,136 @@
+package io.vevox.vx.structures;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link Orientation} and the {@link TransformedBlockStorage} views built from it.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+public class OrientationTest {
+
+  @Test
+  public void rotationsCompose() {
+    Orientation quarter = Orientation.rotation(1);
+    assertEquals(Orientation.rotation(2), quarter.then(quarter));
+    assertEquals(Orientation.IDENTITY, quarter.then(quarter).then(quarter).then(quarter));
+    assertEquals(Orientation.rotation(3), Orientation.rotation(-1));
+    assertEquals(Orientation.rotation(1), Orientation.rotation(5));
+    assertTrue(quarter.swapsAxes());
+    assertFalse(quarter.then(quarter).swapsAxes());
+    assertTrue(quarter.then(quarter).then(quarter).then(quarter).isIdentity());
+  }
+
+  @Test
+  public void mirrorsCompose() {
+    assertEquals(Orientation.IDENTITY, Orientation.MIRROR_X.then(Orientation.MIRROR_X));
+    assertEquals(Orientation.rotation(2), Orientation.MIRROR_X.then(Orientation.MIRROR_Z));
+    assertTrue(Orientation.MIRROR_Z.isMirrored());
+    assertFalse(Orientation.rotation(3).isMirrored());
+  }
+
+  @Test
+  public void decomposesIntoMirrorAndRotation() {
+    for (Orientation orientation : all()) {
+      Orientation rebuilt = Orientation.rotation(orientation.quarterTurns());
+      if (orientation.isMirrored()) rebuilt = Orientation.MIRROR_X.then(rebuilt);
+      assertEquals(orientation, rebuilt);
+    }
+  }
+
+  @Test
+  public void rotatesClockwise() {
+    BlockStorage source = numbered(3, 2, 5);
+    BlockStorage rotated = TransformedBlockStorage.of(source, Orientation.rotation(1));
+    assertEquals(5, rotated.sizeX);
+    assertEquals(2, rotated.sizeY);
+    assertEquals(3, rotated.sizeZ);
+
+    // A clockwise turn takes the minimum corner to the maximum X edge, and the X axis onto the Z axis.
+    for (int y = 0; y < 2; y++)
+      for (int z = 0; z < 5; z++)
+        for (int x = 0; x < 3; x++)
+          assertEquals(source.get(x, y, z), rotated.get(4 - z, y, x));
+  }
+
+  @Test
+  public void mirrorsX() {
+    BlockStorage source = numbered(3, 2, 5);
+    BlockStorage mirrored = TransformedBlockStorage.of(source, Orientation.MIRROR_X);
+    for (int y = 0; y < 2; y++)
+      for (int z = 0; z < 5; z++)
+        for (int x = 0; x < 3; x++)
+          assertEquals(source.get(x, y, z), mirrored.get(2 - x, y, z));
+  }
+
+  @Test
+  public void viewsComposeWithoutNesting() {
+    BlockStorage source = numbered(3, 2, 5);
+    for (Orientation first : all())
+      for (Orientation second : all()) {
+        BlockStorage nested = TransformedBlockStorage.of(TransformedBlockStorage.of(source, first), second);
+        BlockStorage direct = TransformedBlockStorage.of(source, first.then(second));
+
+        if (first.then(second).isIdentity()) assertSame(source, nested);
+        else assertSame(source, ((TransformedBlockStorage) nested).source);
+        assertEquals(direct.sizeX, nested.sizeX);
+        assertEquals(direct.sizeZ, nested.sizeZ);
+        for (int y = 0; y < direct.sizeY; y++)
+          for (int z = 0; z < direct.sizeZ; z++)
+            for (int x = 0; x < direct.sizeX; x++)
+              assertEquals(direct.get(x, y, z), nested.get(x, y, z));
+      }
+  }
+
+  @Test
+  public void viewsCoverEveryCell() {
+    BlockStorage source = numbered(3, 2, 5);
+    for (Orientation orientation : all()) {
+      BlockStorage view = TransformedBlockStorage.of(source, orientation);
+      boolean[] seen = new boolean[source.volume()];
+      for (int y = 0; y < view.sizeY; y++)
+        for (int z = 0; z < view.sizeZ; z++)
+          for (int x = 0; x < view.sizeX; x++) {
+            int state = view.get(x, y, z);
+            assertFalse("Cell seen twice", seen[state]);
+            seen[state] = true;
+          }
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void viewsAreReadOnly() {
+    TransformedBlockStorage.of(numbered(2, 2, 2), Orientation.rotation(1)).set(0, 0, 0, 0);
+  }
+
+  private static List<Orientation> all() {
+    List<Orientation> orientations = new ArrayList<>();
+    for (int turns = 0; turns < 4; turns++)
+      for (Orientation mirror : Arrays.asList(Orientation.IDENTITY, Orientation.MIRROR_X))
+        orientations.add(mirror.then(Orientation.rotation(turns)));
+    return orientations;
+  }
+
+  /**
+   * Creates a storage where each cell holds its own index, so that every cell can be told apart.
+   */
+  private static BlockStorage numbered(int sizeX, int sizeY, int sizeZ) {
+    BlockStorage storage = new DenseBlockStorage(sizeX, sizeY, sizeZ);
+    for (int y = 0; y < sizeY; y++)
+      for (int z = 0; z < sizeZ; z++)
+        for (int x = 0; x < sizeX; x++)
+          storage.set(x, y, z, storage.index(x, y, z));
+    return storage;
+  }
+
+}
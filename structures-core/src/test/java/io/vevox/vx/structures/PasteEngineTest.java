@@ -0,0 +1,214 @@
+package io.vevox.vx.structures;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link PasteEngine}, pasting into an in-memory {@link PasteTarget} that records what it is asked to do.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+public class PasteEngineTest {
+
+  private static final String[] PALETTE = {"stone", "dirt"};
+
+  @Test
+  public void stepsOneSectionAtATime() {
+    // 2 chunks along X and 2 along Z, each crossing 2 sections.
+    BlockStorage blocks = filled(20, 20, 20, 0);
+    FakeTarget target = new FakeTarget(256);
+    PasteEngine<String> engine = new PasteEngine<>(blocks, PALETTE, target, 8, 8, 8, PasteMode.REPLACE);
+    assertEquals(8, engine.units());
+
+    // Each step pastes one section of the chunk, which is only ended after its last section.
+    assertTrue(engine.step());
+    assertEquals(1, engine.unitsDone());
+    assertEquals("begin 0 0", target.events.get(0));
+    assertEquals(8 * 8 * 8, target.blocks.size());
+    assertTrue(engine.step());
+    assertEquals("end 0 0 changed", target.events.get(1));
+
+    for (int unit = 2; unit < 8; unit++)
+      assertTrue(engine.step());
+    assertEquals(20 * 20 * 20, target.blocks.size());
+    assertEquals(0, target.finishes);
+
+    // Once every section is pasted, the target is finished over further steps.
+    assertTrue(engine.hasNext());
+    assertTrue(engine.step());
+    assertTrue(engine.step());
+    assertFalse(engine.hasNext());
+    assertFalse(engine.step());
+    assertEquals(2, target.finishes);
+
+    assertEquals(8, target.events.size());
+    assertEquals(4, engine.result().chunks);
+    assertEquals(20 * 20 * 20, engine.result().blocks);
+  }
+
+  @Test
+  public void visitsChunksInOrder() {
+    FakeTarget target = new FakeTarget(256);
+    new PasteEngine<>(filled(40, 1, 20, 0), PALETTE, target, 0, 0, 0, PasteMode.REPLACE).run();
+
+    List<String> begun = new ArrayList<>();
+    for (String event : target.events)
+      if (event.startsWith("begin")) begun.add(event);
+    assertEquals(6, begun.size());
+    assertEquals("begin 0 0", begun.get(0));
+    assertEquals("begin 0 1", begun.get(1));
+    assertEquals("begin 1 0", begun.get(2));
+    assertEquals("begin 2 1", begun.get(5));
+  }
+
+  @Test
+  public void clipsToTheWorldHeight() {
+    FakeTarget target = new FakeTarget(32);
+    PasteEngine<String> engine = new PasteEngine<>(filled(4, 40, 4, 0), PALETTE, target, 0, -4, 0,
+        PasteMode.REPLACE);
+    assertEquals(2, engine.units());
+
+    PasteResult result = engine.run();
+    assertEquals(4 * 32 * 4, result.blocks);
+    for (String position : target.blocks.keySet()) {
+      int y = Integer.parseInt(position.split(" ")[1]);
+      assertTrue(y >= 0 && y < 32);
+    }
+
+    // A paste wholly outside of the world has nothing to paste, but still finishes the target.
+    FakeTarget above = new FakeTarget(32);
+    PasteEngine<String> outside = new PasteEngine<>(filled(4, 4, 4, 0), PALETTE, above, 0, 40, 0, PasteMode.REPLACE);
+    assertEquals(0, outside.units());
+    outside.run();
+    assertTrue(above.events.isEmpty());
+    assertEquals(2, above.finishes);
+  }
+
+  @Test
+  public void skipsEmptyCells() {
+    BlockStorage blocks = filled(4, 4, 4, 0);
+    blocks.set(1, 2, 3, BlockStorage.EMPTY);
+    FakeTarget target = new FakeTarget(256);
+    new PasteEngine<>(blocks, PALETTE, target, 0, 0, 0, PasteMode.REPLACE).run();
+    assertEquals(4 * 4 * 4 - 1, target.blocks.size());
+    assertNull(target.blocks.get("1 2 3"));
+  }
+
+  @Test
+  public void diffSkipsMatchingBlocks() {
+    BlockStorage blocks = filled(16, 16, 16, 0);
+    FakeTarget target = new FakeTarget(256);
+    new PasteEngine<>(blocks, PALETTE, target, 0, 0, 0, PasteMode.REPLACE).run();
+
+    blocks.set(5, 5, 5, 1);
+    target.events.clear();
+    PasteResult result = new PasteEngine<>(blocks, PALETTE, target, 0, 0, 0, PasteMode.DIFF).run();
+    assertEquals(1, result.blocks);
+    assertEquals(16 * 16 * 16 - 1, result.skipped);
+    assertSame(PALETTE[1], target.blocks.get("5 5 5"));
+    assertEquals("end 0 0 changed", target.events.get(1));
+
+    // Pasting the same blocks again changes nothing, so the chunk is ended unchanged and not counted.
+    target.events.clear();
+    result = new PasteEngine<>(blocks, PALETTE, target, 0, 0, 0, PasteMode.DIFF).run();
+    assertEquals(0, result.blocks);
+    assertEquals(0, result.chunks);
+    assertEquals("end 0 0", target.events.get(1));
+  }
+
+  @Test
+  public void finishesAbandonedPastes() {
+    FakeTarget target = new FakeTarget(256);
+    PasteEngine<String> engine = new PasteEngine<>(filled(4, 40, 4, 0), PALETTE, target, 0, 0, 0,
+        PasteMode.REPLACE);
+    engine.step();
+    engine.finish();
+
+    // The chunk is ended part-way through, and the target finished all at once.
+    assertEquals("end 0 0 changed", target.events.get(1));
+    assertEquals(2, target.finishes);
+    engine.finish();
+    assertEquals(2, target.finishes);
+  }
+
+  private static BlockStorage filled(int sizeX, int sizeY, int sizeZ, int state) {
+    BlockStorage blocks = new DenseBlockStorage(sizeX, sizeY, sizeZ);
+    blocks.fill(0, 0, 0, sizeX - 1, sizeY - 1, sizeZ - 1, state);
+    return blocks;
+  }
+
+  /**
+   * A target that keeps blocks in a map by position, records chunks as they are begun and ended, and takes two calls
+   * to finish.
+   */
+  private static final class FakeTarget implements PasteTarget<String> {
+
+    private final int maxHeight;
+    final Map<String, String> blocks = new HashMap<>();
+    final List<String> events = new ArrayList<>();
+    int finishes;
+
+    private int chunkX, chunkZ;
+    private boolean inChunk;
+
+    FakeTarget(int maxHeight) {
+      this.maxHeight = maxHeight;
+    }
+
+    @Override
+    public int maxHeight() {
+      return maxHeight;
+    }
+
+    @Override
+    public void beginChunk(int chunkX, int chunkZ) {
+      assertFalse("Chunk begun twice", inChunk);
+      this.chunkX = chunkX;
+      this.chunkZ = chunkZ;
+      inChunk = true;
+      events.add("begin " + chunkX + " " + chunkZ);
+    }
+
+    @Override
+    public String get(int x, int y, int z) {
+      assertInChunk(x, z);
+      return blocks.get(x + " " + y + " " + z);
+    }
+
+    @Override
+    public void set(int x, int y, int z, String state) {
+      assertInChunk(x, z);
+      blocks.put(x + " " + y + " " + z, state);
+    }
+
+    private void assertInChunk(int x, int z) {
+      assertTrue("Block outside of the current chunk", inChunk && x >> 4 == chunkX && z >> 4 == chunkZ);
+    }
+
+    @Override
+    public void endChunk(boolean changed) {
+      assertTrue("Chunk ended without being begun", inChunk);
+      inChunk = false;
+      events.add("end " + chunkX + " " + chunkZ + (changed ? " changed" : ""));
+    }
+
+    @Override
+    public boolean finish() {
+      assertFalse("Finished inside of a chunk", inChunk);
+      return ++finishes < 2;
+    }
+
+  }
+
+}
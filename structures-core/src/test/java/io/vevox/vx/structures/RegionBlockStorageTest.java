@@ -0,0 +1,50 @@
+package io.vevox.vx.structures;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link RegionBlockStorage}.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+public class RegionBlockStorageTest {
+
+  @Test
+  public void offsetsIntoItsBacking() {
+    BlockStorage backing = backing();
+    RegionBlockStorage region = new RegionBlockStorage(backing, 2, 1, 3, 4, 5, 2);
+    assertEquals(4 * 5 * 2, region.volume());
+    for (int y = 0; y < 5; y++)
+      for (int z = 0; z < 2; z++)
+        for (int x = 0; x < 4; x++)
+          assertEquals(backing.get(x + 2, y + 1, z + 3), region.get(x, y, z));
+  }
+
+  @Test
+  public void flattensRegionsOfRegions() {
+    BlockStorage backing = backing();
+    RegionBlockStorage region = new RegionBlockStorage(new RegionBlockStorage(backing, 2, 1, 3, 4, 5, 2),
+        1, 2, 1, 2, 2, 1);
+    for (int y = 0; y < 2; y++)
+      for (int x = 0; x < 2; x++)
+        assertEquals(backing.get(x + 3, y + 3, 4), region.get(x, y, 0));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void isReadOnly() {
+    new RegionBlockStorage(backing(), 0, 0, 0, 1, 1, 1).set(0, 0, 0, 0);
+  }
+
+  private static BlockStorage backing() {
+    BlockStorage backing = new DenseBlockStorage(8, 8, 8);
+    for (int y = 0; y < 8; y++)
+      for (int z = 0; z < 8; z++)
+        for (int x = 0; x < 8; x++)
+          backing.set(x, y, z, backing.index(x, y, z) % 5 - 1);
+    return backing;
+  }
+
+}
@@ -0,0 +1,105 @@
+package io.vevox.vx.structures;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link SparseBlockStorage} and building structures into it with {@link BlockStorage#builder}.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+public class SparseBlockStorageTest {
+
+  @Test
+  public void buildsLargeStructuresBrickByBrick() {
+    assertTrue(BlockStorage.builder(64, 64, 64) instanceof SparseBlockStorage);
+    assertTrue(BlockStorage.builder(16, 16, 16) instanceof DenseBlockStorage);
+  }
+
+  @Test
+  public void fillsWholeBricksWithoutAllocating() {
+    // An unaligned box covers some bricks whole and others only in part.
+    SparseBlockStorage storage = new SparseBlockStorage(40, 40, 40, BlockStorage.EMPTY);
+    storage.fill(8, 0, 0, 39, 31, 39, 3);
+    storage.set(0, 0, 0, 1);
+
+    for (int y = 0; y < 40; y++)
+      for (int z = 0; z < 40; z++)
+        for (int x = 0; x < 40; x++) {
+          int expected = x == 0 && y == 0 && z == 0 ? 1 : x >= 8 && y <= 31 ? 3 : BlockStorage.EMPTY;
+          assertEquals(expected, storage.get(x, y, z));
+        }
+    // Bricks from x 16 up are covered whole, so only the partly filled bricks below x 16 are allocated.
+    assertEquals(2 * 3, storage.trim());
+  }
+
+  @Test
+  public void trimsUniformBricks() {
+    SparseBlockStorage storage = new SparseBlockStorage(20, 20, 20, BlockStorage.EMPTY);
+    for (int y = 0; y < 20; y++)
+      for (int z = 0; z < 20; z++)
+        for (int x = 0; x < 20; x++)
+          storage.set(x, y, z, x < 16 ? 0 : 1);
+    storage.set(17, 17, 17, 2);
+
+    // Only the brick holding both 1 and 2 stays allocated, even though edge bricks are partly outside the storage.
+    assertEquals(1, storage.trim());
+    assertEquals(0, storage.get(3, 18, 4));
+    assertEquals(1, storage.get(19, 19, 19));
+    assertEquals(2, storage.get(17, 17, 17));
+  }
+
+  @Test
+  public void compactsBuiltStorage() {
+    Random random = new Random(42);
+    BlockStorage mixed = BlockStorage.builder(70, 70, 70);
+    int[] expected = new int[mixed.volume()];
+    for (int index = 0; index < expected.length; index++)
+      expected[index] = random.nextInt(4) - 1;
+    for (int y = 0; y < 70; y++)
+      for (int z = 0; z < 70; z++)
+        for (int x = 0; x < 70; x++)
+          mixed.set(x, y, z, expected[mixed.index(x, y, z)]);
+
+    // Every brick is mixed, so the storage is worth making dense.
+    BlockStorage compacted = BlockStorage.compact(mixed, 3);
+    assertTrue(compacted instanceof DenseBlockStorage);
+    for (int index = 0; index < expected.length; index++)
+      assertEquals(expected[index], compacted.get(index));
+
+    BlockStorage air = BlockStorage.builder(70, 70, 70);
+    air.fill(0, 0, 0, 69, 69, 69, 0);
+    air.set(35, 35, 35, 1);
+    assertTrue(BlockStorage.compact(air, 2) instanceof SparseBlockStorage);
+  }
+
+  @Test
+  public void readsLargeNBTStructures() throws IOException {
+    // Vanilla files list every block, air included, so only the bricks around the lone block stay allocated.
+    BlockStorage blocks = new DenseBlockStorage(80, 70, 60);
+    blocks.fill(0, 0, 0, 79, 69, 59, 0);
+    blocks.set(40, 41, 42, 1);
+    blocks.set(0, 0, 0, BlockStorage.EMPTY);
+    List<PaletteEntry> palette = Arrays.asList(new PaletteEntry("minecraft:air", Collections.emptyMap()),
+        new PaletteEntry("minecraft:stone", Collections.emptyMap()));
+    StructureData data = new StructureData("tester", 1, blocks, palette);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    data.write(bytes, CompressionCodec.GZIP);
+    StructureData read = StructureData.read(new ByteArrayInputStream(bytes.toByteArray()));
+    assertTrue(read.blocks instanceof SparseBlockStorage);
+    VXSCodecTest.assertSameBlocks(data, read, 0, 0, 0);
+  }
+
+}
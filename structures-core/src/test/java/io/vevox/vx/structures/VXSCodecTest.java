@@ -0,0 +1,163 @@
+package io.vevox.vx.structures;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link VXSCodec} and the {@link MappedBlockStorage} that <code>.vxs</code> files are read into.
+ *
+ * @author Matthew Struble
+ * @since 0.1.0
+ */
+public class VXSCodecTest {
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void roundTripsThroughMappedStorage() throws IOException {
+    // Sizes that are not multiples of the tile size, so that the last tiles on each axis are partial.
+    StructureData data = structure(37, 20, 18, 300);
+    File file = folder.newFile("round-trip.vxs");
+    data.write(file, StructureFormat.VXS, CompressionCodec.GZIP);
+
+    StructureData read = StructureData.read(file);
+    assertTrue(read.blocks instanceof MappedBlockStorage);
+    assertEquals(data.author, read.author);
+    assertEquals(data.version, read.version);
+    assertEquals(data.getPalette(), read.getPalette());
+    assertSameBlocks(data, read, 0, 0, 0);
+  }
+
+  @Test
+  public void convertsBetweenFormats() throws IOException {
+    StructureData data = structure(37, 20, 18, 5);
+    File nbt = folder.newFile("convert.nbt"), vxs = folder.newFile("convert.vxs");
+    data.write(nbt, StructureFormat.NBT, CompressionCodec.GZIP);
+    StructureData.read(nbt).write(vxs, StructureFormat.VXS, CompressionCodec.GZIP);
+    StructureData.read(vxs).write(nbt, StructureFormat.NBT, CompressionCodec.GZIP);
+
+    StructureData read = StructureData.read(nbt);
+    assertEquals(data.getPalette(), read.getPalette());
+    assertSameBlocks(data, read, 0, 0, 0);
+  }
+
+  @Test
+  public void readsRegions() throws IOException {
+    StructureData data = structure(37, 20, 18, 5);
+    File file = folder.newFile("region.vxs");
+    data.write(file, StructureFormat.VXS, CompressionCodec.GZIP);
+
+    StructureData region = StructureData.read(file, 10, 3, 15, 20, 17, 3);
+    assertEquals(20, region.sizeX);
+    assertEquals(17, region.sizeY);
+    assertEquals(3, region.sizeZ);
+    assertSameBlocks(data, region, 10, 3, 15);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void mappedStorageIsReadOnly() throws IOException {
+    File file = folder.newFile("read-only.vxs");
+    structure(4, 4, 4, 2).write(file, StructureFormat.VXS, CompressionCodec.GZIP);
+    StructureData.read(file).blocks.set(0, 0, 0, 0);
+  }
+
+  @Test(expected = UncheckedIOException.class)
+  public void rejectsCorruptTilesWhenRead() throws IOException {
+    File file = corruptFile("corrupt.vxs");
+    StructureData data = StructureData.read(file);
+    data.getState(data.sizeX - 1, data.sizeY - 1, data.sizeZ - 1);
+  }
+
+  @Test
+  public void skipsCorruptTilesOutsideOfRegions() throws IOException {
+    File file = corruptFile("corrupt-region.vxs");
+    StructureData region = StructureData.read(file, 0, 0, 0, 16, 16, 16);
+    assertSameBlocks(structure(48, 32, 32, 5), region, 0, 0, 0);
+  }
+
+  /**
+   * Writes a structure whose last tile is packed and lies wholly within it, with its last cells set to all ones. Those
+   * cells hold states past the end of the palette.
+   */
+  private File corruptFile(String name) throws IOException {
+    File file = folder.newFile(name);
+    structure(48, 32, 32, 5).write(file, StructureFormat.VXS, CompressionCodec.GZIP);
+
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    for (int i = bytes.length - 64; i < bytes.length; i++)
+      bytes[i] = (byte) 0xFF;
+    Files.write(file.toPath(), bytes);
+    return file;
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsTruncatedHeaders() throws IOException {
+    File file = folder.newFile("truncated-header.vxs");
+    structure(37, 20, 18, 5).write(file, StructureFormat.VXS, CompressionCodec.GZIP);
+
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    Files.write(file.toPath(), Arrays.copyOf(bytes, 40));
+    StructureData.read(file);
+  }
+
+  @Test(expected = UncheckedIOException.class)
+  public void rejectsTruncatedTilesWhenRead() throws IOException {
+    File file = folder.newFile("truncated-tile.vxs");
+    structure(37, 20, 18, 5).write(file, StructureFormat.VXS, CompressionCodec.GZIP);
+
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 100));
+    StructureData data = StructureData.read(file);
+    data.getState(data.sizeX - 1, data.sizeY - 1, data.sizeZ - 1);
+  }
+
+  /**
+   * Creates a structure with one uniform tile, one empty tile, and random states everywhere else.
+   */
+  static StructureData structure(int sizeX, int sizeY, int sizeZ, int paletteSize) {
+    List<PaletteEntry> palette = new ArrayList<>();
+    for (int i = 0; i < paletteSize; i++)
+      palette.add(new PaletteEntry("minecraft:block_" + i,
+          i % 2 == 0 ? Collections.emptyMap() : Collections.singletonMap("variant", "v" + i)));
+
+    BlockStorage blocks = new DenseBlockStorage(sizeX, sizeY, sizeZ);
+    Random random = new Random(42);
+    for (int y = 0; y < sizeY; y++)
+      for (int z = 0; z < sizeZ; z++)
+        for (int x = 0; x < sizeX; x++) {
+          int state;
+          if (x < 16 && y < 16 && z < 16) state = paletteSize - 1;
+          else if (x >= 16 && x < 32 && y < 16 && z < 16) state = BlockStorage.EMPTY;
+          else state = random.nextInt(paletteSize + 1) - 1;
+          blocks.set(x, y, z, state);
+        }
+    return new StructureData("tester", 3, blocks, palette);
+  }
+
+  /**
+   * Asserts that every block of the given data matches the block of the expected data at the given offset.
+   */
+  static void assertSameBlocks(StructureData expected, StructureData actual, int offsetX, int offsetY, int offsetZ) {
+    for (int y = 0; y < actual.sizeY; y++)
+      for (int z = 0; z < actual.sizeZ; z++)
+        for (int x = 0; x < actual.sizeX; x++)
+          assertEquals(String.format("Block at %d, %d, %d", x, y, z),
+              expected.getState(x + offsetX, y + offsetY, z + offsetZ), actual.getState(x, y, z));
+  }
+
+}